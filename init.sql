@@ -9,22 +9,120 @@
 CREATE DATABASE IF NOT EXISTS `bank` /*!40100 DEFAULT CHARACTER SET utf8mb4 */;
 USE `bank`;
 
+-- Dumping structure for table bank.card_balance_snapshots
+CREATE TABLE IF NOT EXISTS `card_balance_snapshots` (
+  `card_id` bigint(20) NOT NULL,
+  `taken_at` datetime NOT NULL,
+  `balance` decimal(19,4) NOT NULL,
+  PRIMARY KEY (`card_id`,`taken_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.card_daily_totals
+CREATE TABLE IF NOT EXISTS `card_daily_totals` (
+  `card_id` bigint(20) NOT NULL,
+  `date` date NOT NULL,
+  `in_sum` decimal(19,4) NOT NULL DEFAULT '0.0000',
+  `out_sum` decimal(19,4) NOT NULL DEFAULT '0.0000',
+  `transaction_count` bigint(20) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`card_id`,`date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.card_number_reservations
+CREATE TABLE IF NOT EXISTS `card_number_reservations` (
+  `number_hash` binary(32) NOT NULL,
+  `owner` varchar(36) NOT NULL,
+  `reserved_at` datetime NOT NULL,
+  PRIMARY KEY (`number_hash`),
+  KEY `idx_card_number_reservations_reserved_at` (`reserved_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- Dumping structure for table bank.cards
 CREATE TABLE IF NOT EXISTS `cards` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
   `number` varchar(255) NOT NULL,
-  `number_hash` varchar(255) NOT NULL,
+  `number_hash` binary(32) NOT NULL,
+  `last4` char(4) DEFAULT NULL,
+  `key_version` int(11) NOT NULL DEFAULT '0',
   `holder` varchar(100) NOT NULL,
   `expiry_date` date NOT NULL,
   `status` varchar(10) NOT NULL,
   `balance` decimal(19,4) NOT NULL DEFAULT '0.0000',
   `deleted` bit(1) NOT NULL,
   `user_id` bigint(20) NOT NULL,
+  `transaction_count` bigint(20) NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_cards_number_hash` (`number_hash`),
   KEY `fk_cards_user_id` (`user_id`),
   CONSTRAINT `fk_cards_user_id` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- Dumping structure for table bank.id_generators
+CREATE TABLE IF NOT EXISTS `id_generators` (
+  `name` varchar(255) NOT NULL,
+  `next_val` bigint(20) NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping data for table bank.id_generators: ~2 rows (approximately)
+DELETE FROM `id_generators`;
+/*!40000 ALTER TABLE `id_generators` DISABLE KEYS */;
+INSERT INTO `id_generators` (`name`, `next_val`) VALUES
+	('cards', 50),
+	('transactions', 50);
+/*!40000 ALTER TABLE `id_generators` ENABLE KEYS */;
+
+-- Dumping structure for table bank.idempotency_keys
+CREATE TABLE IF NOT EXISTS `idempotency_keys` (
+  `user_id` bigint(20) NOT NULL,
+  `idempotency_key` varchar(64) NOT NULL,
+  `request_hash` binary(32) NOT NULL,
+  `response` text DEFAULT NULL,
+  `created_at` datetime NOT NULL,
+  PRIMARY KEY (`user_id`,`idempotency_key`),
+  KEY `idx_idempotency_keys_created_at` (`created_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.ledger_checkpoints
+CREATE TABLE IF NOT EXISTS `ledger_checkpoints` (
+  `shard` int(11) NOT NULL,
+  `sequence` bigint(20) NOT NULL,
+  PRIMARY KEY (`shard`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.ledger_leases
+CREATE TABLE IF NOT EXISTS `ledger_leases` (
+  `name` varchar(50) NOT NULL,
+  `owner` varchar(36) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.owner_daily_totals
+CREATE TABLE IF NOT EXISTS `owner_daily_totals` (
+  `user_id` bigint(20) NOT NULL,
+  `date` date NOT NULL,
+  `in_sum` decimal(19,4) NOT NULL DEFAULT '0.0000',
+  `out_sum` decimal(19,4) NOT NULL DEFAULT '0.0000',
+  `transaction_count` bigint(20) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`user_id`,`date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.revoked_tokens
+CREATE TABLE IF NOT EXISTS `revoked_tokens` (
+  `jti` varchar(36) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  PRIMARY KEY (`jti`),
+  KEY `idx_revoked_tokens_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Dumping structure for table bank.transaction_archive_months
+CREATE TABLE IF NOT EXISTS `transaction_archive_months` (
+  `month` date NOT NULL,
+  `transaction_count` bigint(20) NOT NULL,
+  `archived_at` datetime NOT NULL,
+  PRIMARY KEY (`month`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- Dumping structure for table bank.transactions
 CREATE TABLE IF NOT EXISTS `transactions` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
@@ -33,12 +131,46 @@ CREATE TABLE IF NOT EXISTS `transactions` (
   `amount` decimal(19,4) NOT NULL DEFAULT '0.0000',
   `comment` varchar(100) NOT NULL,
   `date` datetime NOT NULL,
-  PRIMARY KEY (`id`),
-  KEY `fk_transactions_from_id` (`from_id`),
-  KEY `fk_transactions_to_id` (`to_id`),
-  CONSTRAINT `fk_transactions_from_id` FOREIGN KEY (`from_id`) REFERENCES `cards` (`id`),
-  CONSTRAINT `fk_transactions_to_id` FOREIGN KEY (`to_id`) REFERENCES `cards` (`id`)
-) ENGINE=InnoDB AUTO_INCREMENT=3 DEFAULT CHARSET=utf8mb4;
+  `from_user_id` bigint(20) DEFAULT NULL,
+  `to_user_id` bigint(20) DEFAULT NULL,
+  `from_balance_after` decimal(19,4) DEFAULT NULL,
+  `to_balance_after` decimal(19,4) DEFAULT NULL,
+  PRIMARY KEY (`id`,`date`),
+  KEY `idx_transactions_from_id_date_id` (`from_id`,`date`,`id`),
+  KEY `idx_transactions_to_id_date_id` (`to_id`,`date`,`id`),
+  KEY `idx_transactions_from_user_id_date_id` (`from_user_id`,`date`,`id`),
+  KEY `idx_transactions_to_user_id_date_id` (`to_user_id`,`date`,`id`),
+  KEY `idx_transactions_date` (`date`)
+) ENGINE=InnoDB AUTO_INCREMENT=3 DEFAULT CHARSET=utf8mb4
+/*!50500 PARTITION BY RANGE  COLUMNS(`date`)
+(PARTITION p_history VALUES LESS THAN ('2026-11-01 00:00:00') ENGINE = InnoDB,
+ PARTITION p_future VALUES LESS THAN (MAXVALUE) ENGINE = InnoDB) */;
+
+-- Dumping structure for table bank.transactions_archive
+CREATE TABLE IF NOT EXISTS `transactions_archive` (
+  `date` datetime NOT NULL,
+  `id` bigint(20) NOT NULL,
+  `from_id` bigint(20) NOT NULL,
+  `to_id` bigint(20) NOT NULL,
+  `from_user_id` bigint(20) NOT NULL,
+  `to_user_id` bigint(20) NOT NULL,
+  `amount` decimal(19,4) NOT NULL,
+  `from_balance_after` decimal(19,4) DEFAULT NULL,
+  `to_balance_after` decimal(19,4) DEFAULT NULL,
+  `comment` varchar(100) NOT NULL,
+  PRIMARY KEY (`date`,`id`),
+  KEY `idx_transactions_archive_from_id_date_id` (`from_id`,`date`,`id`),
+  KEY `idx_transactions_archive_to_id_date_id` (`to_id`,`date`,`id`),
+  KEY `idx_transactions_archive_from_user_id_date_id` (`from_user_id`,`date`,`id`),
+  KEY `idx_transactions_archive_to_user_id_date_id` (`to_user_id`,`date`,`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 ROW_FORMAT=COMPRESSED;
+
+-- Dumping structure for table bank.user_transaction_counts
+CREATE TABLE IF NOT EXISTS `user_transaction_counts` (
+  `user_id` bigint(20) NOT NULL,
+  `transaction_count` bigint(20) NOT NULL,
+  PRIMARY KEY (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- Dumping structure for table bank.users
 CREATE TABLE IF NOT EXISTS `users` (
@@ -47,6 +179,7 @@ CREATE TABLE IF NOT EXISTS `users` (
   `password` varchar(255) NOT NULL,
   `role` varchar(20) NOT NULL,
   `enabled` bit(1) NOT NULL,
+  `token_version` int(11) NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`),
   UNIQUE KEY `username` (`username`)
 ) ENGINE=InnoDB AUTO_INCREMENT=2 DEFAULT CHARSET=utf8mb4;
@@ -54,8 +187,8 @@ CREATE TABLE IF NOT EXISTS `users` (
 -- Dumping data for table bank.users: ~1 rows (approximately)
 DELETE FROM `users`;
 /*!40000 ALTER TABLE `users` DISABLE KEYS */;
-INSERT INTO `users` (`id`, `username`, `password`, `role`, `enabled`) VALUES
-	(1, 'admin', '$2a$12$GBJock2qGIaOUY2nXPDgUOdXdj9cGW88EQNYbTE.T0y5dFCO8kyXC', 'ADMIN', b'1');
+INSERT INTO `users` (`id`, `username`, `password`, `role`, `enabled`, `token_version`) VALUES
+	(1, 'admin', '$2a$12$GBJock2qGIaOUY2nXPDgUOdXdj9cGW88EQNYbTE.T0y5dFCO8kyXC', 'ADMIN', b'1', 0);
 /*!40000 ALTER TABLE `users` ENABLE KEYS */;
 
 /*!40101 SET SQL_MODE=IFNULL(@OLD_SQL_MODE, '') */;
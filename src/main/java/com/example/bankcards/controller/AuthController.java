@@ -2,8 +2,11 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.auth.AuthRequest;
 import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.dto.auth.RefreshRequest;
 import com.example.bankcards.entity.User;
-import com.example.bankcards.security.JwtService;
+import com.example.bankcards.util.ResponseUtil;
+import com.example.bankcards.security.PasswordHasher;
+import com.example.bankcards.security.RefreshTokenService;
 import com.example.bankcards.security.UserDetailsServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,14 +15,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(value = "/api/auth", produces = MediaType.APPLICATION_JSON_VALUE)
 @RequiredArgsConstructor
@@ -27,31 +32,68 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final UserDetailsServiceImpl userDetailsService;
-    private final PasswordEncoder passwordEncoder;
-    private final JwtService jwtService;
+    private final PasswordHasher passwordHasher;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping
     @Operation(
             summary = "Аутентификация пользователя",
-            description = "Выполняет вход пользователя и возвращает JWT токен",
+            description = "Выполняет вход пользователя и возвращает JWT и refresh-токен",
             responses = {
                     @ApiResponse(
                             responseCode = "200", description = "Успешная аутентификация",
                             content = @Content(
                                     schema = @Schema(implementation = AuthResponse.class)
                             )
-                    )
+                    ),
+                    @ApiResponse(responseCode = "503", description = "Сервис перегружен")
             }
     )
-    public ResponseEntity<AuthResponse> login(
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(
             @RequestBody @Valid AuthRequest authRequest
     ) {
         User user = userDetailsService.loadUserByUsername(authRequest.getUsername());
-        if (user == null
-                || !passwordEncoder.matches(authRequest.getPassword(), user.getPassword())
-                || !user.isEnabled()) {
-            return ResponseEntity.ok(new AuthResponse(null));
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(new AuthResponse(null, null)));
         }
-        return ResponseEntity.ok(new AuthResponse(jwtService.generateToken(user)));
+        return passwordHasher.matches(authRequest.getPassword(), user.getPassword())
+                .thenApply(matches -> {
+                    if (!matches || !user.isEnabled()) {
+                        return ResponseEntity.ok(new AuthResponse(null, null));
+                    }
+                    return ResponseEntity.ok(refreshTokenService.issue(user));
+                });
+    }
+
+    @PostMapping("/refresh")
+    @Operation(
+            summary = "Обновление токена",
+            description = "Отзывает переданный refresh-токен и возвращает новую пару токенов",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Токены обновлены",
+                            content = @Content(
+                                    schema = @Schema(implementation = AuthResponse.class)
+                            )
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Токен недействителен")
+            }
+    )
+    public ResponseEntity<AuthResponse> refresh(@RequestBody @Valid RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(refreshTokenService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    @Operation(
+            summary = "Выход",
+            description = "Отзывает refresh-токен",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Токен отозван"),
+                    @ApiResponse(responseCode = "401", description = "Токен недействителен")
+            }
+    )
+    public ResponseEntity<?> logout(@RequestBody @Valid RefreshRequest refreshRequest) {
+        refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        return ResponseUtil.buildMessage(HttpStatus.OK, "Logged out.");
     }
 }
@@ -1,13 +1,17 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.card.BulkCreateCardRequest;
+import com.example.bankcards.dto.card.CardLookupRequest;
 import com.example.bankcards.dto.card.CreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardResponse;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.util.PageableUtil;
 import com.example.bankcards.util.ResponseUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,14 +19,18 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping(path = "/api/cards", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -32,6 +40,7 @@ import org.springframework.web.bind.annotation.*;
 public class CardController {
 
     private final CardService cardService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/own")
     @Operation(
@@ -41,14 +50,19 @@ public class CardController {
                     @ApiResponse(responseCode = "200", description = "Список карт пользователя")
             }
     )
-    public ResponseEntity<Page<CardDto>> own(
+    public ResponseEntity<Slice<CardDto>> own(
             @AuthenticationPrincipal User principal,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(cardService.getSliceByUserId(principal.getId(), pageable));
+        }
         return ResponseEntity.ok().body(cardService.getByUserId(principal.getId(), pageable));
     }
 
@@ -62,13 +76,18 @@ public class CardController {
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<Page<CardDto>> getAll(
+    public ResponseEntity<Slice<CardDto>> getAll(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(cardService.getAllSlice(pageable));
+        }
         return ResponseEntity.ok().body(cardService.getAll(pageable));
     }
 
@@ -90,6 +109,24 @@ public class CardController {
         return ResponseEntity.ok().body(cardService.getById(id));
     }
 
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/lookup")
+    @Operation(
+            summary = "Найти карту по номеру (только ADMIN)",
+            description = "Возвращает информацию о карте по ее полному номеру",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Информация о карте",
+                            content = @Content(schema = @Schema(implementation = CardDto.class))
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Карта не найдена"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<CardDto> lookup(@RequestBody @Valid CardLookupRequest cardLookupRequest) {
+        return ResponseEntity.ok().body(cardService.getByNumber(cardLookupRequest.getNumber()));
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     @PutMapping
     @Operation(
@@ -110,6 +147,35 @@ public class CardController {
         return ResponseEntity.ok().body(cardService.create(createCardRequest));
     }
 
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(path = "/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Массовый выпуск карт (только ADMIN)",
+            description = "Выпускает карты пачками и построчно возвращает номера выпущенных карт в формате NDJSON. "
+                    + "Каждая пачка сохраняется в отдельной транзакции",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Карты выпущены",
+                            content = @Content(schema = @Schema(implementation = CreateCardResponse.class))
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Пользователь не найден"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> createBulk(
+            @RequestBody @Valid BulkCreateCardRequest bulkCreateCardRequest
+    ) {
+        Stream<CreateCardResponse> cards = cardService.createBulk(bulkCreateCardRequest);
+        StreamingResponseBody body = outputStream -> {
+            Iterator<CreateCardResponse> iterator = cards.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping("/{id}/activate")
     @Operation(
@@ -1,26 +1,53 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.transaction.BatchTransferRequest;
+import com.example.bankcards.dto.transaction.BatchTransferResult;
+import com.example.bankcards.dto.transaction.CardBalanceDto;
+import com.example.bankcards.dto.transaction.DailyTotalDto;
 import com.example.bankcards.dto.transaction.DepositRequest;
+import com.example.bankcards.dto.transaction.ExportFormat;
 import com.example.bankcards.dto.transaction.TransactionRequest;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.util.CsvUtil;
 import com.example.bankcards.util.PageableUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping(path = "/api/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -29,7 +56,16 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "bearerAuth")
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final DateTimeFormatter EXPORT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transactions.export.timeout}")
+    private long exportTimeout;
 
     @GetMapping("/own")
     @Operation(
@@ -39,14 +75,19 @@ public class TransactionController {
                     @ApiResponse(responseCode = "200", description = "Список транзакций пользователя")
             }
     )
-    public ResponseEntity<Page<TransactionDto>> own(
+    public ResponseEntity<Slice<TransactionDto>> own(
             @AuthenticationPrincipal User principal,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "date") String sort,
-            @RequestParam(defaultValue = "desc") String direction
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(transactionService.getSliceByUserId(principal.getId(), principal.toDto(), pageable));
+        }
         return ResponseEntity.ok().body(transactionService.getByUserId(principal.getId(), principal.toDto(), pageable));
     }
 
@@ -59,15 +100,20 @@ public class TransactionController {
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<Page<TransactionDto>> getByCard(
+    public ResponseEntity<Slice<TransactionDto>> getByCard(
             @AuthenticationPrincipal User principal,
             @PathVariable Long cardId,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "date") String sort,
-            @RequestParam(defaultValue = "desc") String direction
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(transactionService.getSliceByCardId(cardId, principal.toDto(), pageable));
+        }
         return ResponseEntity.ok().body(transactionService.getByCardId(cardId, principal.toDto(), pageable));
     }
 
@@ -80,18 +126,205 @@ public class TransactionController {
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<Page<TransactionDto>> getByUser(
+    public ResponseEntity<Slice<TransactionDto>> getByUser(
             @AuthenticationPrincipal User principal,
             @PathVariable Long userId,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "date") String sort,
-            @RequestParam(defaultValue = "desc") String direction
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(transactionService.getSliceByUserId(userId, principal.toDto(), pageable));
+        }
         return ResponseEntity.ok().body(transactionService.getByUserId(userId, principal.toDto(), pageable));
     }
 
+    @GetMapping("/own/cursor")
+    @Operation(
+            summary = "Получить собственные транзакции по курсору",
+            description = "Возвращает транзакции текущего пользователя от новых к старым. "
+                    + "Для следующей страницы передайте next_cursor из предыдущего ответа",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница транзакций пользователя"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор")
+            }
+    )
+    public ResponseEntity<CursorPage<TransactionDto>> ownByCursor(
+            @AuthenticationPrincipal User principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok().body(
+                transactionService.seekByUserId(principal.getId(), principal.toDto(), cursor, limit)
+        );
+    }
+
+    @GetMapping("/card/{cardId}/cursor")
+    @Operation(
+            summary = "Получить транзакции по карте по курсору",
+            description = "Возвращает транзакции указанной карты от новых к старым. "
+                    + "Для следующей страницы передайте next_cursor из предыдущего ответа",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница транзакций карты"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<CursorPage<TransactionDto>> getByCardByCursor(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long cardId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok().body(transactionService.seekByCardId(cardId, principal.toDto(), cursor, limit));
+    }
+
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(
+            summary = "Получить транзакции по пользователю по курсору",
+            description = "Возвращает транзакции указанного пользователя от новых к старым. "
+                    + "Для следующей страницы передайте next_cursor из предыдущего ответа",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница транзакций пользователя"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<CursorPage<TransactionDto>> getByUserByCursor(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok().body(transactionService.seekByUserId(userId, principal.toDto(), cursor, limit));
+    }
+
+    @GetMapping("/card/{cardId}/balance")
+    @Operation(
+            summary = "Получить баланс карты на момент времени",
+            description = "Возвращает баланс карты с учетом всех транзакций, совершенных до указанного момента. "
+                    + "Подходит для расчета входящего остатка выписки",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Баланс карты",
+                            content = @Content(schema = @Schema(implementation = CardBalanceDto.class))
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Карта не найдена"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<CardBalanceDto> getBalanceAt(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long cardId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return ResponseEntity.ok().body(transactionService.getBalanceAt(cardId, principal.toDto(), at));
+    }
+
+    @GetMapping("/own/daily")
+    @Operation(
+            summary = "Получить собственные обороты по дням",
+            description = "Возвращает суммы поступлений и списаний по всем картам текущего пользователя "
+                    + "за каждый день указанного периода, в котором были транзакции",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Обороты пользователя по дням"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный период")
+            }
+    )
+    public ResponseEntity<List<DailyTotalDto>> ownDailyTotals(
+            @AuthenticationPrincipal User principal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok().body(
+                transactionService.getDailyTotalsByUserId(principal.getId(), principal.toDto(), from, to)
+        );
+    }
+
+    @GetMapping("/card/{cardId}/daily")
+    @Operation(
+            summary = "Получить обороты карты по дням",
+            description = "Возвращает суммы поступлений и списаний по указанной карте "
+                    + "за каждый день указанного периода, в котором были транзакции",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Обороты карты по дням"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный период или карта не найдена"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<List<DailyTotalDto>> getDailyTotalsByCard(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long cardId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok().body(
+                transactionService.getDailyTotalsByCardId(cardId, principal.toDto(), from, to)
+        );
+    }
+
+    @GetMapping("/user/{userId}/daily")
+    @Operation(
+            summary = "Получить обороты пользователя по дням",
+            description = "Возвращает суммы поступлений и списаний по всем картам указанного пользователя "
+                    + "за каждый день указанного периода, в котором были транзакции",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Обороты пользователя по дням"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный период"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<List<DailyTotalDto>> getDailyTotalsByUser(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok().body(
+                transactionService.getDailyTotalsByUserId(userId, principal.toDto(), from, to)
+        );
+    }
+
+    @GetMapping(path = "/own/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(
+            summary = "Выгрузить собственные транзакции",
+            description = "Построчно выгружает всю историю транзакций текущего пользователя "
+                    + "от старых к новым в формате NDJSON или CSV",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "История транзакций пользователя")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportOwn(
+            @AuthenticationPrincipal User principal,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletRequest request
+    ) {
+        return export(request, transactionService.exportByUserId(principal.getId(), principal.toDto()), format);
+    }
+
+    @GetMapping(path = "/user/{userId}/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(
+            summary = "Выгрузить транзакции пользователя",
+            description = "Построчно выгружает всю историю транзакций указанного пользователя "
+                    + "от старых к новым в формате NDJSON или CSV",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "История транзакций пользователя"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportByUser(
+            @AuthenticationPrincipal User principal,
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletRequest request
+    ) {
+        return export(request, transactionService.exportByUserId(userId, principal.toDto()), format);
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping("/deposit")
     @Operation(
@@ -103,13 +336,21 @@ public class TransactionController {
                             content = @Content(schema = @Schema(implementation = TransactionDto.class))
                     ),
                     @ApiResponse(responseCode = "400", description = "Карта не найдена"),
-                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+                    @ApiResponse(responseCode = "409", description = "Запрос с этим ключом еще выполняется"),
+                    @ApiResponse(responseCode = "422", description = "Ключ уже использован для другого запроса")
             }
     )
     public ResponseEntity<TransactionDto> createDeposit(
+            @AuthenticationPrincipal User principal,
+            @Parameter(description = "Ключ идемпотентности, повтор запроса с тем же ключом вернет исходный результат")
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @RequestBody @Valid DepositRequest depositRequest
     ) {
-        return ResponseEntity.ok().body(transactionService.deposit(depositRequest));
+        return ResponseEntity.ok().body(idempotencyService.execute(
+                principal.getId(), idempotencyKey, "deposit", depositRequest,
+                () -> transactionService.deposit(depositRequest)
+        ));
     }
 
     @PostMapping("/transfer")
@@ -122,13 +363,72 @@ public class TransactionController {
                             content = @Content(schema = @Schema(implementation = TransactionDto.class))
                     ),
                     @ApiResponse(responseCode = "400", description = "Недостаточно средств"),
-                    @ApiResponse(responseCode = "404", description = "Карта не найдена")
+                    @ApiResponse(responseCode = "404", description = "Карта не найдена"),
+                    @ApiResponse(responseCode = "409", description = "Запрос с этим ключом еще выполняется"),
+                    @ApiResponse(responseCode = "422", description = "Ключ уже использован для другого запроса")
             }
     )
     public ResponseEntity<TransactionDto> transfer(
             @AuthenticationPrincipal User principal,
+            @Parameter(description = "Ключ идемпотентности, повтор запроса с тем же ключом вернет исходный результат")
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @RequestBody @Valid TransactionRequest transactionRequest
     ) {
-        return ResponseEntity.ok().body(transactionService.transfer(transactionRequest, principal.toDto()));
+        return ResponseEntity.ok().body(idempotencyService.execute(
+                principal.getId(), idempotencyKey, "transfer", transactionRequest,
+                () -> transactionService.transfer(transactionRequest, principal.toDto())
+        ));
+    }
+
+    @PostMapping("/transfer/batch")
+    @Operation(
+            summary = "Пакетный перевод средств",
+            description = "Выполняет несколько переводов между собственными картами за один запрос. "
+                    + "В режиме ALL_OR_NOTHING при ошибке любого перевода не выполняется ни один, "
+                    + "в режиме PER_ITEM результат возвращается для каждого перевода",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Результаты переводов"),
+                    @ApiResponse(responseCode = "400", description = "Недостаточно средств или карта не найдена"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<List<BatchTransferResult>> transferBatch(
+            @AuthenticationPrincipal User principal,
+            @RequestBody @Valid BatchTransferRequest batchRequest
+    ) {
+        return ResponseEntity.ok().body(transactionService.transferBatch(batchRequest, principal.toDto()));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(
+            HttpServletRequest request, Stream<TransactionDto> transactions, ExportFormat format
+    ) {
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(TimeUnit.SECONDS.toMillis(exportTimeout));
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (transactions) {
+                Iterator<TransactionDto> iterator = transactions.iterator();
+                if (format == ExportFormat.CSV) {
+                    Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                    writer.write(CsvUtil.row("id", "from", "to", "amount", "comment", "date"));
+                    while (iterator.hasNext()) {
+                        TransactionDto transaction = iterator.next();
+                        writer.write(CsvUtil.row(
+                                transaction.getId(), transaction.getFrom(), transaction.getTo(),
+                                transaction.getAmount().toPlainString(), transaction.getComment(),
+                                EXPORT_DATE_FORMAT.format(transaction.getDate())
+                        ));
+                    }
+                    writer.flush();
+                    return;
+                }
+                while (iterator.hasNext()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
     }
 }
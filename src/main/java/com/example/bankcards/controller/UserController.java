@@ -2,6 +2,7 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.user.ChangePasswordRequest;
 import com.example.bankcards.dto.user.CreateUserRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.CardService;
@@ -9,6 +10,7 @@ import com.example.bankcards.service.UserService;
 import com.example.bankcards.util.PageableUtil;
 import com.example.bankcards.util.ResponseUtil;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -16,8 +18,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -60,13 +62,18 @@ public class UserController {
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<Page<UserDto>> getAll(
+    public ResponseEntity<Slice<UserDto>> getAll(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(userService.getAllSlice(pageable));
+        }
         return ResponseEntity.ok().body(userService.getAll(pageable));
     }
 
@@ -99,14 +106,19 @@ public class UserController {
                     @ApiResponse(responseCode = "403", description = "Доступ запрещен")
             }
     )
-    public ResponseEntity<Page<CardDto>> getUserCards(
+    public ResponseEntity<Slice<CardDto>> getUserCards(
             @PathVariable Long id,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "id") String sort,
-            @RequestParam(defaultValue = "asc") String direction
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Вернуть срез без подсчета общего количества элементов")
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
         Pageable pageable = PageableUtil.makePageable(page - 1, limit, direction, sort);
+        if (slice) {
+            return ResponseEntity.ok().body(cardService.getSliceByUserId(id, pageable));
+        }
         return ResponseEntity.ok().body(cardService.getByUserId(id, pageable));
     }
 
@@ -147,4 +159,38 @@ public class UserController {
         userService.setEnabled(id, value);
         return ResponseUtil.buildMessage(HttpStatus.OK, value ? "User enabled." : "User disabled.");
     }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/{id}/password")
+    @Operation(
+            summary = "Сменить пароль пользователя (только ADMIN)",
+            description = "Устанавливает новый пароль пользователя",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Пароль изменен"),
+                    @ApiResponse(responseCode = "400", description = "Пользователь не найден"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<?> setPassword(
+            @PathVariable long id, @RequestBody @Valid ChangePasswordRequest changePasswordRequest
+    ) {
+        userService.setPassword(id, changePasswordRequest.getPassword());
+        return ResponseUtil.buildMessage(HttpStatus.OK, "Password changed.");
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/{id}/revoke-tokens")
+    @Operation(
+            summary = "Отозвать токены пользователя (только ADMIN)",
+            description = "Делает недействительными все выданные пользователю токены",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Токены отозваны"),
+                    @ApiResponse(responseCode = "400", description = "Пользователь не найден"),
+                    @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+            }
+    )
+    public ResponseEntity<?> revokeTokens(@PathVariable long id) {
+        userService.revokeTokens(id);
+        return ResponseUtil.buildMessage(HttpStatus.OK, "Tokens revoked.");
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Страница результатов с курсором продолжения")
+public class CursorPage<T> {
+
+    @Schema(description = "Элементы страницы")
+    private final List<T> content;
+
+    @JsonProperty("next_cursor")
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней странице")
+    private final String nextCursor;
+}
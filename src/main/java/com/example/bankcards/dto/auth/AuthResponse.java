@@ -1,5 +1,6 @@
 package com.example.bankcards.dto.auth;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -11,4 +12,8 @@ public class AuthResponse {
 
     @Schema(description = "JWT", example = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...")
     private final String token;
+
+    @JsonProperty("refresh_token")
+    @Schema(description = "Refresh-токен", example = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...")
+    private final String refreshToken;
 }
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.auth;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+
+@Getter
+@Schema(description = "Запрос на обновление токена")
+public class RefreshRequest {
+
+    @NotBlank
+    @Schema(description = "Refresh-токен", example = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...")
+    private final String refreshToken;
+
+    @JsonCreator
+    public RefreshRequest(@JsonProperty("refresh_token") String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Запрос на массовый выпуск карт")
+public class BulkCreateCardRequest {
+
+    @NotNull
+    @Schema(description = "ID владельца карт", example = "1")
+    private final Long user;
+
+    @NotEmpty
+    @Size(max = 10000)
+    @Schema(description = "Выпускаемые карты")
+    private final List<@Valid BulkCardItem> cards;
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.dto.card;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Getter;
+
+@Getter
+@Schema(description = "Запрос на поиск карты по номеру")
+public class CardLookupRequest {
+
+    @NotBlank
+    @Pattern(regexp = "\\d{16}")
+    @Schema(description = "Полный номер карты", example = "4000001234567899")
+    private final String number;
+
+    @JsonCreator
+    public CardLookupRequest(@JsonProperty("number") String number) {
+        this.number = number;
+    }
+}
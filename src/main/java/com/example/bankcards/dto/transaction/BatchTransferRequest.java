@@ -0,0 +1,35 @@
+package com.example.bankcards.dto.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Запрос на пакетный перевод средств")
+public class BatchTransferRequest {
+
+    @NotNull
+    @Schema(
+            description = "Режим выполнения: ALL_OR_NOTHING - все переводы или ни одного, "
+                    + "PER_ITEM - каждый перевод выполняется независимо",
+            example = "ALL_OR_NOTHING"
+    )
+    private final Mode mode;
+
+    @NotEmpty
+    @Size(max = 100)
+    @Schema(description = "Переводы")
+    private final List<@Valid TransactionRequest> transfers;
+
+    public enum Mode {
+
+        ALL_OR_NOTHING, PER_ITEM
+    }
+}
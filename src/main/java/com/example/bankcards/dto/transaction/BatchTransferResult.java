@@ -0,0 +1,32 @@
+package com.example.bankcards.dto.transaction;
+
+import com.example.bankcards.dto.TransactionDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Результат перевода из пакета")
+public class BatchTransferResult {
+
+    @Schema(description = "Порядковый номер перевода в запросе", example = "0")
+    private final int index;
+
+    @Schema(description = "Признак успешного выполнения")
+    private final boolean success;
+
+    @Schema(description = "Созданная транзакция")
+    private final TransactionDto transaction;
+
+    @Schema(description = "Причина отказа", example = "Insufficient funds")
+    private final String error;
+
+    public static BatchTransferResult success(int index, TransactionDto transaction) {
+        return new BatchTransferResult(index, true, transaction, null);
+    }
+
+    public static BatchTransferResult failure(int index, String error) {
+        return new BatchTransferResult(index, false, null, error);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "DTO для представления баланса карты на момент времени")
+public class CardBalanceDto {
+
+    @Schema(description = "ID карты")
+    private final Long card;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Schema(description = "Момент времени, на который рассчитан баланс")
+    private final LocalDateTime at;
+
+    @Schema(description = "Баланс карты до транзакций, совершенных начиная с этого момента")
+    private final BigDecimal balance;
+}
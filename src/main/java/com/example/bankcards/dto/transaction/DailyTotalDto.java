@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "DTO для представления оборотов за день")
+public class DailyTotalDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @Schema(description = "День")
+    private final LocalDate date;
+
+    @Schema(description = "Сумма поступлений")
+    private final BigDecimal in;
+
+    @Schema(description = "Сумма списаний")
+    private final BigDecimal out;
+
+    @Schema(description = "Количество транзакций")
+    private final long count;
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+
+@Getter
+@Schema(description = "Запрос на смену пароля")
+public class ChangePasswordRequest {
+
+    @NotBlank
+    @Schema(description = "Новый пароль", example = "password")
+    private final String password;
+
+    @JsonCreator
+    public ChangePasswordRequest(@JsonProperty("password") String password) {
+        this.password = password;
+    }
+}
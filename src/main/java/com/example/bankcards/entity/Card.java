@@ -2,29 +2,40 @@ package com.example.bankcards.entity;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.util.CardUtil;
-import com.example.bankcards.util.EncryptionService;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "cards")
+@DynamicUpdate
 @Getter
 @Setter
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "card_id")
+    @TableGenerator(
+            name = "card_id", table = "id_generators", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "cards", allocationSize = 50
+    )
     private Long id;
 
     @Column(nullable = false)
     private String number;
 
     @Column(nullable = false)
-    private String numberHash;
+    private int keyVersion;
+
+    @Column(nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] numberHash;
+
+    @Column(length = 4)
+    private String last4;
 
     @Column(nullable = false)
     private String holder;
@@ -42,20 +53,20 @@ public class Card {
     @Column(nullable = false)
     private boolean deleted;
 
+    @Column(nullable = false)
+    private long transactionCount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     public Status getStatus() {
-        if (expiryDate.isBefore(LocalDate.now())) {
-            return Status.EXPIRED;
-        }
-        return status;
+        return Status.of(status, expiryDate);
     }
 
-    public CardDto toDto(EncryptionService encryptionService) {
+    public CardDto toDto() {
         return new CardDto(
-                id, CardUtil.mask(encryptionService.decrypt(number)),
+                id, CardUtil.mask(last4),
                 holder, expiryDate, getStatus(), balance,
                 deleted
         );
@@ -63,6 +74,13 @@ public class Card {
 
     public enum Status {
 
-        ACTIVE, BLOCKED, EXPIRED
+        ACTIVE, BLOCKED, EXPIRED;
+
+        public static Status of(Status status, LocalDate expiryDate) {
+            if (expiryDate.isBefore(LocalDate.now())) {
+                return EXPIRED;
+            }
+            return status;
+        }
     }
 }
@@ -15,7 +15,11 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_id")
+    @TableGenerator(
+            name = "transaction_id", table = "id_generators", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "transactions", allocationSize = 50
+    )
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,9 +30,21 @@ public class Transaction {
     @JoinColumn(name = "to_id", nullable = false)
     private Card to;
 
+    @Column(name = "from_user_id")
+    private Long fromUserId;
+
+    @Column(name = "to_user_id")
+    private Long toUserId;
+
     @Column(nullable = false)
     private BigDecimal amount;
 
+    @Column(name = "from_balance_after")
+    private BigDecimal fromBalanceAfter;
+
+    @Column(name = "to_balance_after")
+    private BigDecimal toBalanceAfter;
+
     @Column(length = 100, nullable = false)
     private String comment;
 
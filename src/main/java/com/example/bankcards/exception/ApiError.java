@@ -27,6 +27,17 @@ public enum ApiError {
     ENTITY_NOT_FOUND("%s not found", HttpStatus.BAD_REQUEST),
     ENTITY_ALREADY_EXISTS("%s already exists", HttpStatus.BAD_REQUEST),
 
+    IDEMPOTENCY_KEY_INVALID("Idempotency key must be 1 to 64 characters long", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_IN_USE("Request with this idempotency key is still in progress", HttpStatus.CONFLICT),
+    IDEMPOTENCY_KEY_MISMATCH(
+            "Idempotency key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY
+    ),
+
+    BATCH_MODE_NOT_SUPPORTED("All-or-nothing batches are not supported in ledger mode", HttpStatus.BAD_REQUEST),
+
+    SERVICE_BUSY("Service is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    TOO_MANY_REQUESTS("Too many requests, try again later", HttpStatus.TOO_MANY_REQUESTS),
+
     EXCEPTION("%s", HttpStatus.INTERNAL_SERVER_ERROR) {
         @Override
         public ResponseEntity<?> build(HttpStatus httpStatus, Object... params) {
@@ -0,0 +1,8 @@
+package com.example.bankcards.exception;
+
+public class BatchModeNotSupportedException extends RuntimeException {
+
+    public BatchModeNotSupportedException() {
+        super(ApiError.BATCH_MODE_NOT_SUPPORTED.getMessage());
+    }
+}
@@ -3,6 +3,8 @@ package com.example.bankcards.exception;
 import com.example.bankcards.exception.entity.EntityAlreadyExistException;
 import com.example.bankcards.exception.entity.EntityNotFoundException;
 import com.example.bankcards.exception.entity.InsufficientFundsException;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
@@ -41,6 +43,20 @@ public class ExceptionHandlerImpl {
         return ApiError.WRONG_PARAMETER.build(ex.getName());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public /* 400 */ ResponseEntity<?> handleInvalidCursor(
+            InvalidCursorException ex
+    ) {
+        return ApiError.PARAMETER_NOT_VALID.build("cursor", ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidDateRangeException.class)
+    public /* 400 */ ResponseEntity<?> handleInvalidDateRange(
+            InvalidDateRangeException ex
+    ) {
+        return ApiError.PARAMETER_NOT_VALID.build("to", ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public /* 400 */ ResponseEntity<?> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex
@@ -78,6 +94,36 @@ public class ExceptionHandlerImpl {
         return ApiError.EXCEPTION.build(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(IdempotencyKeyException.class)
+    public /* 400, 409, 422 */ ResponseEntity<?> handleIdempotencyKey(
+            IdempotencyKeyException ex
+    ) {
+        return ex.getError().build();
+    }
+
+    @ExceptionHandler(BatchModeNotSupportedException.class)
+    public /* 400 */ ResponseEntity<?> handleBatchModeNotSupported() {
+        return ApiError.BATCH_MODE_NOT_SUPPORTED.build();
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public /* 401 */ ResponseEntity<?> handleInvalidToken() {
+        return ApiError.TOKEN_INVALID.build();
+    }
+
+    @ExceptionHandler(JwtException.class)
+    public /* 401 */ ResponseEntity<?> handleJwtException(JwtException ex) {
+        if (ex instanceof ExpiredJwtException) {
+            return ApiError.TOKEN_EXPIRED.build();
+        }
+        return ApiError.TOKEN_INVALID.build();
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public /* 503 */ ResponseEntity<?> handleServiceBusy() {
+        return ApiError.SERVICE_BUSY.build();
+    }
+
     @ExceptionHandler(Exception.class)
     public /* 500 */ ResponseEntity<?> handleException(Exception ex) {
         return ApiError.EXCEPTION.build(HttpStatus.INTERNAL_SERVER_ERROR, ex);
@@ -0,0 +1,14 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotencyKeyException extends RuntimeException {
+
+    private final ApiError error;
+
+    public IdempotencyKeyException(ApiError error) {
+        super(error.getMessage());
+        this.error = error;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.exception;
+
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException() {
+        super("Token is invalid");
+    }
+}
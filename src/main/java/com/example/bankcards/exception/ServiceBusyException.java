@@ -0,0 +1,8 @@
+package com.example.bankcards.exception;
+
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException() {
+        super("Service is busy");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Component
+public class CardBalanceSnapshotJob {
+
+    private static final String SELECT_DAY = "SELECT from_id, to_id, from_balance_after, to_balance_after "
+            + "FROM transactions WHERE date >= ? AND date < ? ORDER BY date, id";
+    private static final String INSERT_SNAPSHOT =
+            "INSERT IGNORE INTO card_balance_snapshots (card_id, taken_at, balance) VALUES (?, ?, ?)";
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Counter snapshots;
+
+    public CardBalanceSnapshotJob(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cards.balance-snapshot.batch-size}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.snapshots = meterRegistry.counter("cards.balance.snapshots");
+    }
+
+    @Scheduled(cron = "${cards.balance-snapshot.cron}")
+    public void run() {
+        snapshot(LocalDate.now().atStartOfDay());
+    }
+
+    public void snapshot(LocalDateTime takenAt) {
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SELECT_DAY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+            statement.setFetchSize(STREAMING_FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(takenAt.minusDays(1)));
+            statement.setTimestamp(2, Timestamp.valueOf(takenAt));
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            track(balances, rs.getLong(1), rs.getBigDecimal(3));
+            track(balances, rs.getLong(2), rs.getBigDecimal(4));
+        });
+
+        Timestamp timestamp = Timestamp.valueOf(takenAt);
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<Long, BigDecimal> balance : balances.entrySet()) {
+            batch.add(new Object[]{balance.getKey(), timestamp, balance.getValue()});
+            if (batch.size() == batchSize) {
+                write(batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void track(Map<Long, BigDecimal> balances, long cardId, BigDecimal balance) {
+        if (balance == null) {
+            balances.remove(cardId);
+        } else {
+            balances.put(cardId, balance);
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, batch);
+        snapshots.increment(batch.size());
+        batch.clear();
+    }
+}
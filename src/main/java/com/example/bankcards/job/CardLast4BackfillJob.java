@@ -0,0 +1,86 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardNumberView;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.EncryptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+public class CardLast4BackfillJob {
+
+    private static final String UPDATE_LAST4 = "UPDATE cards SET last4 = ? WHERE id = ? AND last4 IS NULL";
+
+    private final CardRepository cardRepository;
+    private final EncryptionService encryptionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final Counter backfilled;
+
+    public CardLast4BackfillJob(
+            CardRepository cardRepository,
+            EncryptionService encryptionService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cards.last4-backfill.batch-size}") int batchSize
+    ) {
+        this.cardRepository = cardRepository;
+        this.encryptionService = encryptionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("card-last4-backfill-"));
+        this.backfilled = meterRegistry.counter("cards.last4.backfilled");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void run() {
+        long lastId = 0;
+        List<CardNumberView> batch;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            batch = cardRepository.findWithoutLast4(lastId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (CardNumberView card : batch) {
+                String number = encryptionService.decrypt(card.getNumber(), card.getKeyVersion());
+                args.add(new Object[]{number.substring(number.length() - 4), card.getId()});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_LAST4, args));
+
+            backfilled.increment(batch.size());
+            lastId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == batchSize);
+    }
+}
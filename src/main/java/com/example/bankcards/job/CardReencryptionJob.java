@@ -0,0 +1,120 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.CardNumberView;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.EncryptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CardReencryptionJob {
+
+    private static final String UPDATE_NUMBER =
+            "UPDATE cards SET number = ?, key_version = ? WHERE id = ? AND key_version = ?";
+
+    private final CardRepository cardRepository;
+    private final EncryptionService encryptionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int rowsPerSecond;
+    private final ExecutorService executor;
+    private final Counter processed;
+    private final AtomicLong remaining = new AtomicLong();
+    private final AtomicLong rate = new AtomicLong();
+
+    public CardReencryptionJob(
+            CardRepository cardRepository,
+            EncryptionService encryptionService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${encryption.reencryption.batch-size}") int batchSize,
+            @Value("${encryption.reencryption.rows-per-second}") int rowsPerSecond
+    ) {
+        this.cardRepository = cardRepository;
+        this.encryptionService = encryptionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("card-reencryption-"));
+        this.processed = meterRegistry.counter("cards.reencryption.processed");
+        Gauge.builder("cards.reencryption.remaining", remaining, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("cards.reencryption.rate", rate, AtomicLong::get)
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void run() {
+        int version = encryptionService.getCurrentVersion();
+        remaining.set(cardRepository.countByKeyVersionNot(version));
+        if (remaining.get() == 0) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        long done = 0;
+        long lastId = 0;
+        List<CardNumberView> batch;
+        do {
+            batch = cardRepository.findByKeyVersionNot(version, lastId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (CardNumberView card : batch) {
+                String number = encryptionService.decrypt(card.getNumber(), card.getKeyVersion());
+                args.add(new Object[]{
+                        encryptionService.encrypt(number), version, card.getId(), card.getKeyVersion()
+                });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_NUMBER, args));
+
+            done += batch.size();
+            processed.increment(batch.size());
+            remaining.addAndGet(-batch.size());
+            lastId = batch.get(batch.size() - 1).getId();
+
+            long elapsed = System.nanoTime() - startedAt;
+            long expected = TimeUnit.SECONDS.toNanos(done) / rowsPerSecond;
+            if (expected > elapsed) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(expected - elapsed);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            rate.set(done * TimeUnit.SECONDS.toNanos(1) / Math.max(System.nanoTime() - startedAt, 1));
+        } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+    }
+}
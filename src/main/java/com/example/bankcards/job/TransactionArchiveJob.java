@@ -0,0 +1,204 @@
+package com.example.bankcards.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class TransactionArchiveJob {
+
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION "
+            + "FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+            + "AND TABLE_NAME = 'transactions' AND PARTITION_NAME IS NOT NULL";
+    private static final String SPLIT_FUTURE = "ALTER TABLE transactions REORGANIZE PARTITION p_future "
+            + "INTO (%s, PARTITION p_future VALUES LESS THAN (MAXVALUE))";
+    private static final String PARTITION = "PARTITION %s VALUES LESS THAN ('%s 00:00:00')";
+    private static final String DROP_PARTITION = "ALTER TABLE transactions DROP PARTITION %s";
+    private static final String MAX_VALUE = "MAXVALUE";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String SELECT_LAST_MONTH = "SELECT MAX(month) FROM transaction_archive_months";
+    private static final String SELECT_OLDEST = "SELECT MIN(date) FROM transactions";
+    private static final String COUNT_MONTH = "SELECT COUNT(*) FROM transaction_archive_months WHERE month = ?";
+    private static final String COPY_MONTH = "INSERT IGNORE INTO transactions_archive (date, id, from_id, to_id, "
+            + "from_user_id, to_user_id, amount, from_balance_after, to_balance_after, comment) "
+            + "SELECT t.date, t.id, t.from_id, t.to_id, COALESCE(t.from_user_id, f.user_id), "
+            + "COALESCE(t.to_user_id, c.user_id), t.amount, t.from_balance_after, t.to_balance_after, t.comment "
+            + "FROM transactions t JOIN cards f ON f.id = t.from_id JOIN cards c ON c.id = t.to_id "
+            + "WHERE t.date >= ? AND t.date < ?";
+    private static final String INSERT_MONTH =
+            "INSERT INTO transaction_archive_months (month, transaction_count, archived_at) VALUES (?, ?, NOW())";
+    private static final String DELETE_MONTH = "DELETE FROM transactions WHERE date >= ? AND date < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final int batchSize;
+    private final long boundaryTtl;
+    private final ExecutorService executor;
+    private final Counter archived;
+
+    private volatile Boundary boundary;
+
+    public TransactionArchiveJob(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${transactions.archive.retention-months}") int retentionMonths,
+            @Value("${transactions.archive.months-ahead}") int monthsAhead,
+            @Value("${transactions.archive.batch-size}") int batchSize,
+            @Value("${transactions.archive.boundary-ttl}") int boundaryTtl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.batchSize = batchSize;
+        this.boundaryTtl = TimeUnit.SECONDS.toNanos(boundaryTtl);
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("transaction-archive-"));
+        this.archived = meterRegistry.counter("transactions.archived");
+    }
+
+    public LocalDateTime getArchivedBefore() {
+        Boundary current = boundary;
+        if (current == null || System.nanoTime() - current.getLoadedAt() > boundaryTtl) {
+            current = loadBoundary();
+        }
+        return current.getArchivedBefore();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::run);
+    }
+
+    @Scheduled(cron = "${transactions.archive.cron}")
+    public void schedule() {
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized void run() {
+        Map<String, LocalDate> partitions = loadPartitions();
+        addPartitions(partitions);
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+        while (!Thread.currentThread().isInterrupted()) {
+            Timestamp oldest = jdbcTemplate.queryForObject(SELECT_OLDEST, Timestamp.class);
+            if (oldest == null) {
+                return;
+            }
+            LocalDate month = oldest.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+            if (!month.isBefore(cutoff)) {
+                return;
+            }
+            archive(month, partitions.containsKey(PARTITION_NAME.format(month)));
+        }
+    }
+
+    private Map<String, LocalDate> loadPartitions() {
+        Map<String, LocalDate> partitions = new HashMap<>();
+        jdbcTemplate.query(SELECT_PARTITIONS, rs -> {
+            String bound = rs.getString(2);
+            partitions.put(rs.getString(1), MAX_VALUE.equals(bound)
+                    ? LocalDate.MAX
+                    : LocalDate.parse(bound.replace("'", "").substring(0, 10)));
+        });
+        return partitions;
+    }
+
+    private void addPartitions(Map<String, LocalDate> partitions) {
+        LocalDate next = partitions.values().stream()
+                .filter(bound -> !bound.equals(LocalDate.MAX))
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        if (next == null) {
+            return;
+        }
+        LocalDate last = LocalDate.now().withDayOfMonth(1).plusMonths(monthsAhead + 1);
+        StringJoiner added = new StringJoiner(", ");
+        for (LocalDate month = next; month.isBefore(last); month = month.plusMonths(1)) {
+            added.add(PARTITION.formatted(PARTITION_NAME.format(month), month.plusMonths(1)));
+            partitions.put(PARTITION_NAME.format(month), month.plusMonths(1));
+        }
+        if (added.length() > 0) {
+            jdbcTemplate.execute(SPLIT_FUTURE.formatted(added));
+        }
+    }
+
+    private void archive(LocalDate month, boolean partitioned) {
+        Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+        Integer copied = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.queryForObject(COUNT_MONTH, Integer.class, Date.valueOf(month)) > 0) {
+                return 0;
+            }
+            int rows = jdbcTemplate.update(COPY_MONTH, from, to);
+            jdbcTemplate.update(INSERT_MONTH, Date.valueOf(month), rows);
+            return rows;
+        });
+        archived.increment(copied == null ? 0 : copied);
+        loadBoundary();
+        try {
+            TimeUnit.NANOSECONDS.sleep(boundaryTtl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (partitioned) {
+            jdbcTemplate.execute(DROP_PARTITION.formatted(PARTITION_NAME.format(month)));
+            return;
+        }
+        int deleted;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            deleted = jdbcTemplate.update(DELETE_MONTH, from, to, batchSize);
+        } while (deleted > 0);
+    }
+
+    private Boundary loadBoundary() {
+        Date lastMonth = jdbcTemplate.queryForObject(SELECT_LAST_MONTH, Date.class);
+        Boundary loaded = new Boundary(
+                lastMonth == null ? null : lastMonth.toLocalDate().plusMonths(1).atStartOfDay(), System.nanoTime()
+        );
+        boundary = loaded;
+        return loaded;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Boundary {
+
+        private final LocalDateTime archivedBefore;
+        private final long loadedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.job;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TransactionOwnerBackfillHealthIndicator implements HealthIndicator {
+
+    private final TransactionOwnerBackfillJob ownerBackfillJob;
+
+    @Override
+    public Health health() {
+        RuntimeException lastError = ownerBackfillJob.getLastError();
+        Health.Builder health = lastError == null ? Health.up() : Health.down();
+        health.withDetail("completed", ownerBackfillJob.isCompleted());
+        if (lastError != null) {
+            health.withDetail("lastError", String.valueOf(lastError.getMessage()));
+        }
+        return health.build();
+    }
+}
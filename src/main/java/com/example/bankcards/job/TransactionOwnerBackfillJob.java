@@ -0,0 +1,122 @@
+package com.example.bankcards.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class TransactionOwnerBackfillJob {
+
+    private static final String SELECT_RANGE =
+            "SELECT MIN(id), MAX(id) FROM transactions WHERE from_user_id IS NULL";
+    private static final String UPDATE_OWNERS = "UPDATE transactions t "
+            + "JOIN cards f ON f.id = t.from_id JOIN cards c ON c.id = t.to_id "
+            + "SET t.from_user_id = f.user_id, t.to_user_id = c.user_id "
+            + "WHERE t.id BETWEEN ? AND ? AND t.from_user_id IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final Counter backfilled;
+    private final Counter failures;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean completed;
+    private volatile long nextId;
+    private volatile RuntimeException lastError;
+
+    public TransactionOwnerBackfillJob(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${transactions.owner-backfill.batch-size}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("transaction-owner-backfill-"));
+        this.backfilled = meterRegistry.counter("transactions.owner.backfilled");
+        this.failures = meterRegistry.counter("transactions.owner.backfill.failures");
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        schedule();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${transactions.owner-backfill.retry-interval}",
+            initialDelayString = "${transactions.owner-backfill.retry-interval}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void retry() {
+        if (lastError != null) {
+            schedule();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void run() {
+        if (completed) {
+            return;
+        }
+        try {
+            backfill();
+            lastError = null;
+        } catch (RuntimeException e) {
+            lastError = e;
+            failures.increment();
+        }
+    }
+
+    private void schedule() {
+        if (!completed && running.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    run();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    private void backfill() {
+        long[] range = jdbcTemplate.queryForObject(SELECT_RANGE, (rs, rowNum) -> {
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        });
+        if (range != null) {
+            for (long from = Math.max(range[0], nextId); from <= range[1]; from += batchSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                backfilled.increment(jdbcTemplate.update(UPDATE_OWNERS, from, from + batchSize - 1));
+                nextId = from + batchSize;
+            }
+        }
+        completed = true;
+    }
+}
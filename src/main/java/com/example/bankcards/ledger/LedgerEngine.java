@@ -0,0 +1,254 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Component
+public class LedgerEngine {
+
+    private static final Pattern JOURNAL_NAME = Pattern.compile("shard-(\\d+)\\.journal");
+
+    private final LedgerStore store;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int shardCount;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long flushInterval;
+    private final int leaseTtl;
+    private final int maxPending;
+    private final Path journalDir;
+    private final List<LedgerShard> shards = new ArrayList<>();
+    private final Counter recovered;
+    private final Counter flushFailures;
+    private final Counter leaseRenewalFailures;
+    private final Timer flushTimer;
+    private final Timer syncTimer;
+
+    private ExecutorService shardExecutor;
+    private ScheduledExecutorService flusher;
+    private volatile boolean started;
+    private volatile long leaseDeadline;
+    private volatile RuntimeException flushError;
+
+    public LedgerEngine(
+            LedgerStore store,
+            MeterRegistry meterRegistry,
+            @Value("${ledger.enabled}") boolean enabled,
+            @Value("${ledger.shards}") int shardCount,
+            @Value("${ledger.batch-size}") int batchSize,
+            @Value("${ledger.queue-capacity}") int queueCapacity,
+            @Value("${ledger.flush-interval-millis}") long flushInterval,
+            @Value("${ledger.lease-ttl}") int leaseTtl,
+            @Value("${ledger.max-pending}") int maxPending,
+            @Value("${ledger.journal-dir}") Path journalDir
+    ) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.flushInterval = flushInterval;
+        this.leaseTtl = leaseTtl;
+        this.maxPending = maxPending;
+        this.journalDir = journalDir;
+        this.recovered = meterRegistry.counter("ledger.recovered");
+        this.flushFailures = meterRegistry.counter("ledger.flush.failures");
+        this.leaseRenewalFailures = meterRegistry.counter("ledger.lease.renewal.failures");
+        this.flushTimer = meterRegistry.timer("ledger.flush");
+        this.syncTimer = meterRegistry.timer("ledger.journal.sync");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isWriter() {
+        return started && System.nanoTime() - leaseDeadline < 0;
+    }
+
+    public RuntimeException getFlushError() {
+        return flushError;
+    }
+
+    public int getPendingSize() {
+        return shards.stream().mapToInt(LedgerShard::getPendingSize).sum();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long acquiredAt = System.nanoTime();
+        if (!store.acquireLease(leaseTtl)) {
+            throw new IllegalStateException("Ledger lease is held by another instance");
+        }
+        leaseDeadline = acquiredAt + leaseValidity();
+        Files.createDirectories(journalDir);
+        recoverRemovedShards();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(openShard(i));
+        }
+
+        shardExecutor = Executors.newFixedThreadPool(shardCount, new CustomizableThreadFactory("ledger-shard-"));
+        shards.forEach(shardExecutor::execute);
+        flusher = Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("ledger-flush-"));
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        long renewInterval = TimeUnit.SECONDS.toMillis(leaseTtl) / 3;
+        flusher.scheduleWithFixedDelay(this::renewLease, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        started = true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!started) {
+            return;
+        }
+        started = false;
+        shards.forEach(LedgerShard::stop);
+        shardExecutor.shutdown();
+        shardExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        for (LedgerShard shard : shards) {
+            shard.close();
+        }
+        if (flushError == null) {
+            store.releaseLease();
+        }
+    }
+
+    public TransactionDto deposit(Card card, BigDecimal amount) {
+        long userId = card.getUser().getId();
+        return execute(new LedgerShard.Operation(userId, card.getId(), card.getId(), amount, "", true));
+    }
+
+    public TransactionDto transfer(Card from, Card to, BigDecimal amount, String comment) {
+        long userId = from.getUser().getId();
+        return execute(new LedgerShard.Operation(userId, from.getId(), to.getId(), amount, comment, false));
+    }
+
+    void flush() {
+        RuntimeException failure = null;
+        for (LedgerShard shard : shards) {
+            try {
+                flushTimer.record(shard::flush);
+            } catch (RuntimeException ex) {
+                flushFailures.increment();
+                failure = ex;
+            }
+        }
+        flushError = failure;
+    }
+
+    void renewLease() {
+        if (!isWriter()) {
+            return;
+        }
+        long renewedAt = System.nanoTime();
+        try {
+            if (store.acquireLease(leaseTtl)) {
+                leaseDeadline = renewedAt + leaseValidity();
+            } else {
+                leaseDeadline = renewedAt;
+            }
+        } catch (RuntimeException ex) {
+            leaseRenewalFailures.increment();
+        }
+    }
+
+    private long leaseValidity() {
+        return TimeUnit.SECONDS.toNanos(leaseTtl) * 2 / 3;
+    }
+
+    private TransactionDto execute(LedgerShard.Operation operation) {
+        if (!isWriter()) {
+            throw new ServiceBusyException();
+        }
+        LedgerShard shard = shards.get(Math.floorMod(Long.hashCode(operation.getUserId()), shards.size()));
+        if (shard.getPendingSize() >= maxPending || !shard.submit(operation)) {
+            throw new ServiceBusyException();
+        }
+        try {
+            return operation.getResult().join().toDto();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private LedgerShard openShard(int index) throws IOException {
+        LedgerJournal journal = new LedgerJournal(journalPath(index));
+        long sequence = recover(index, journal);
+        LedgerShard shard = new LedgerShard(
+                index, journal, store, sequence, batchSize, queueCapacity, flushInterval, syncTimer
+        );
+        Gauge.builder("ledger.queue.size", shard, LedgerShard::getQueueSize)
+                .tag("shard", String.valueOf(index))
+                .register(meterRegistry);
+        Gauge.builder("ledger.pending", shard, LedgerShard::getPendingSize)
+                .tag("shard", String.valueOf(index))
+                .register(meterRegistry);
+        return shard;
+    }
+
+    private void recoverRemovedShards() throws IOException {
+        List<Path> journals;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            journals = files.toList();
+        }
+        for (Path path : journals) {
+            Matcher matcher = JOURNAL_NAME.matcher(path.getFileName().toString());
+            if (matcher.matches() && Integer.parseInt(matcher.group(1)) >= shardCount) {
+                try (LedgerJournal journal = new LedgerJournal(path)) {
+                    recover(Integer.parseInt(matcher.group(1)), journal);
+                }
+                Files.delete(path);
+            }
+        }
+    }
+
+    private long recover(int index, LedgerJournal journal) throws IOException {
+        long checkpoint = store.getCheckpoint(index);
+        List<LedgerEntry> entries = journal.read().stream()
+                .filter(entry -> entry.getSequence() > checkpoint)
+                .toList();
+        if (!entries.isEmpty()) {
+            store.write(index, entries);
+            recovered.increment(entries.size());
+        }
+        journal.truncate();
+        return entries.isEmpty() ? checkpoint : entries.get(entries.size() - 1).getSequence();
+    }
+
+    private Path journalPath(int index) {
+        return journalDir.resolve("shard-" + index + ".journal");
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.dto.TransactionDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public class LedgerEntry {
+
+    private final long sequence;
+    private final long transactionId;
+    private final long userId;
+    private final long fromId;
+    private final long toId;
+    private final BigDecimal amount;
+    private final BigDecimal fromBalance;
+    private final BigDecimal toBalance;
+    private final String comment;
+    private final LocalDateTime date;
+
+    public TransactionDto toDto() {
+        return new TransactionDto(transactionId, fromId, toId, amount, comment, date);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.ledger;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class LedgerHealthIndicator implements HealthIndicator {
+
+    private final LedgerEngine ledgerEngine;
+
+    @Override
+    public Health health() {
+        if (!ledgerEngine.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        RuntimeException flushError = ledgerEngine.getFlushError();
+        Health.Builder health = ledgerEngine.isWriter() && flushError == null ? Health.up() : Health.down();
+        health.withDetail("writer", ledgerEngine.isWriter())
+                .withDetail("pending", ledgerEngine.getPendingSize());
+        if (flushError != null) {
+            health.withDetail("flushError", String.valueOf(flushError.getMessage()));
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankcards.ledger;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class LedgerJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+
+    public LedgerJournal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public List<LedgerEntry> read() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<LedgerEntry> entries = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            entries.add(decode(new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), buffer.position(), length)
+            )));
+            buffer.position(buffer.position() + length);
+        }
+        channel.truncate(buffer.position());
+        channel.position(buffer.position());
+        return entries;
+    }
+
+    public void append(List<LedgerEntry> entries) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(entries.size() * 128);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(payload);
+        CRC32 crc = new CRC32();
+        for (LedgerEntry entry : entries) {
+            payload.reset();
+            encode(entry, out);
+            crc.reset();
+            crc.update(payload.toByteArray());
+            records.writeBytes(ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(payload.size())
+                    .putInt((int) crc.getValue())
+                    .array());
+            payload.writeTo(records);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        long position = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException ex) {
+            channel.truncate(position);
+            channel.position(position);
+            throw ex;
+        }
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void encode(LedgerEntry entry, DataOutputStream out) throws IOException {
+        out.writeLong(entry.getSequence());
+        out.writeLong(entry.getTransactionId());
+        out.writeLong(entry.getUserId());
+        out.writeLong(entry.getFromId());
+        out.writeLong(entry.getToId());
+        out.writeUTF(entry.getAmount().toPlainString());
+        out.writeUTF(entry.getFromBalance().toPlainString());
+        out.writeUTF(entry.getToBalance().toPlainString());
+        out.writeUTF(entry.getComment());
+        out.writeUTF(entry.getDate().toString());
+    }
+
+    private static LedgerEntry decode(DataInputStream in) throws IOException {
+        return new LedgerEntry(
+                in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                new BigDecimal(in.readUTF()), new BigDecimal(in.readUTF()), new BigDecimal(in.readUTF()),
+                in.readUTF(), LocalDateTime.parse(in.readUTF())
+        );
+    }
+}
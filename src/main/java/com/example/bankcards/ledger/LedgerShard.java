@@ -0,0 +1,224 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import com.example.bankcards.exception.entity.CardNotFoundException;
+import com.example.bankcards.exception.entity.InsufficientFundsException;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LedgerShard implements Runnable {
+
+    private final int index;
+    private final LedgerJournal journal;
+    private final LedgerStore store;
+    private final int batchSize;
+    private final long idleTimeout;
+    private final Timer syncTimer;
+    private final BlockingQueue<Operation> queue;
+    private final Map<Long, BigDecimal> balances = new HashMap<>();
+    private final Queue<LedgerEntry> unflushed = new ConcurrentLinkedQueue<>();
+    private final List<LedgerEntry> flushing = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean running = true;
+    private volatile long flushedSequence;
+    private long sequence;
+
+    public LedgerShard(
+            int index, LedgerJournal journal, LedgerStore store, long sequence,
+            int batchSize, int queueCapacity, long idleTimeout, Timer syncTimer
+    ) {
+        this.index = index;
+        this.journal = journal;
+        this.store = store;
+        this.sequence = sequence;
+        this.flushedSequence = sequence;
+        this.batchSize = batchSize;
+        this.idleTimeout = idleTimeout;
+        this.syncTimer = syncTimer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getPendingSize() {
+        return pending.get();
+    }
+
+    public boolean submit(Operation operation) {
+        return running && queue.offer(operation);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public void close() throws IOException {
+        List<Operation> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(operation -> operation.result.completeExceptionally(new ServiceBusyException()));
+        journal.close();
+    }
+
+    @Override
+    public void run() {
+        List<Operation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Operation first = queue.poll(idleTimeout, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                    batch.clear();
+                }
+                compact();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                batch.forEach(operation -> operation.result.completeExceptionally(ex));
+                batch.clear();
+            }
+        }
+    }
+
+    public void flush() {
+        while (true) {
+            LedgerEntry entry;
+            while (flushing.size() < batchSize && (entry = unflushed.poll()) != null) {
+                flushing.add(entry);
+            }
+            if (flushing.isEmpty()) {
+                return;
+            }
+            store.write(index, flushing);
+            flushedSequence = flushing.get(flushing.size() - 1).getSequence();
+            pending.addAndGet(-flushing.size());
+            flushing.clear();
+        }
+    }
+
+    void process(List<Operation> batch) {
+        loadBalances(batch);
+
+        long sequenceBefore = sequence;
+        Map<Long, BigDecimal> balancesBefore = new HashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>(batch.size());
+        List<Operation> applied = new ArrayList<>(batch.size());
+        for (Operation operation : batch) {
+            balancesBefore.putIfAbsent(operation.fromId, balances.get(operation.fromId));
+            balancesBefore.putIfAbsent(operation.toId, balances.get(operation.toId));
+            try {
+                entries.add(apply(operation));
+                applied.add(operation);
+            } catch (RuntimeException ex) {
+                operation.result.completeExceptionally(ex);
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            syncTimer.recordCallable(() -> {
+                journal.append(entries);
+                return null;
+            });
+        } catch (Exception ex) {
+            balances.putAll(balancesBefore);
+            sequence = sequenceBefore;
+            IllegalStateException failure = new IllegalStateException("Ledger journal write failed", ex);
+            applied.forEach(operation -> operation.result.completeExceptionally(failure));
+            return;
+        }
+
+        unflushed.addAll(entries);
+        pending.addAndGet(entries.size());
+        for (int i = 0; i < applied.size(); i++) {
+            applied.get(i).result.complete(entries.get(i));
+        }
+    }
+
+    private void loadBalances(List<Operation> batch) {
+        Set<Long> missing = new HashSet<>();
+        for (Operation operation : batch) {
+            if (!balances.containsKey(operation.fromId)) {
+                missing.add(operation.fromId);
+            }
+            if (!balances.containsKey(operation.toId)) {
+                missing.add(operation.toId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            balances.putAll(store.loadBalances(missing));
+        }
+    }
+
+    private LedgerEntry apply(Operation operation) {
+        BigDecimal from = balances.get(operation.fromId);
+        BigDecimal to = balances.get(operation.toId);
+        if (from == null || to == null) {
+            throw new CardNotFoundException();
+        }
+        if (!operation.deposit && from.compareTo(operation.amount) < 0) {
+            throw new InsufficientFundsException();
+        }
+        long transactionId = store.nextTransactionId();
+        if (operation.deposit) {
+            balances.put(operation.toId, to.add(operation.amount));
+        } else {
+            balances.put(operation.fromId, from.subtract(operation.amount));
+            balances.put(operation.toId, balances.get(operation.toId).add(operation.amount));
+        }
+        return new LedgerEntry(
+                ++sequence, transactionId, operation.userId, operation.fromId, operation.toId, operation.amount,
+                balances.get(operation.fromId), balances.get(operation.toId),
+                operation.comment, LocalDateTime.now()
+        );
+    }
+
+    private void compact() {
+        try {
+            if (sequence == flushedSequence && journal.size() > 0) {
+                journal.truncate();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @RequiredArgsConstructor
+    public static class Operation {
+
+        private final long userId;
+        private final long fromId;
+        private final long toId;
+        private final BigDecimal amount;
+        private final String comment;
+        private final boolean deposit;
+        private final CompletableFuture<LedgerEntry> result = new CompletableFuture<>();
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public CompletableFuture<LedgerEntry> getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.repository.DailyTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+@Component
+@RequiredArgsConstructor
+public class LedgerStore {
+
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String SELECT_BALANCES = "SELECT id, balance FROM cards WHERE id IN (%s)";
+    private static final String UPDATE_BALANCE =
+            "UPDATE cards SET balance = ?, transaction_count = transaction_count + ? WHERE id = ?";
+    private static final String INCREMENT_OWNER_COUNT = "INSERT INTO user_transaction_counts (user_id, transaction_count) "
+            + "VALUES (?, ?) ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count)";
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (id, from_id, to_id, from_user_id, to_user_id, amount, "
+                    + "from_balance_after, to_balance_after, comment, date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CHECKPOINT = "INSERT IGNORE INTO ledger_checkpoints (shard, sequence) VALUES (?, 0)";
+    private static final String SELECT_CHECKPOINT = "SELECT sequence FROM ledger_checkpoints WHERE shard = ?";
+    private static final String SELECT_CHECKPOINT_FOR_UPDATE =
+            "SELECT sequence FROM ledger_checkpoints WHERE shard = ? FOR UPDATE";
+    private static final String UPDATE_CHECKPOINT = "UPDATE ledger_checkpoints SET sequence = ? WHERE shard = ?";
+    private static final String SELECT_NEXT_ID =
+            "SELECT next_val FROM id_generators WHERE name = 'transactions' FOR UPDATE";
+    private static final String UPDATE_NEXT_ID =
+            "UPDATE id_generators SET next_val = next_val + ? WHERE name = 'transactions'";
+    private static final String INSERT_LEASE = "INSERT IGNORE INTO ledger_leases (name, owner, expires_at) "
+            + "VALUES ('ledger', ?, NOW() + INTERVAL ? SECOND)";
+    private static final String UPDATE_LEASE = "UPDATE ledger_leases SET owner = ?, expires_at = NOW() + INTERVAL ? SECOND "
+            + "WHERE name = 'ledger' AND (owner = ? OR expires_at < NOW())";
+    private static final String SELECT_LEASE = "SELECT COUNT(*) FROM ledger_leases "
+            + "WHERE name = 'ledger' AND owner = ? AND expires_at > NOW() FOR UPDATE";
+    private static final String DELETE_LEASE = "DELETE FROM ledger_leases WHERE name = 'ledger' AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    private long nextId;
+    private long maxId;
+
+    public Map<Long, BigDecimal> loadBalances(Collection<Long> ids) {
+        Map<Long, BigDecimal> balances = new HashMap<>(ids.size() * 2);
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query(
+                SELECT_BALANCES.formatted(placeholders),
+                rs -> {
+                    balances.put(rs.getLong(1), rs.getBigDecimal(2));
+                },
+                ids.toArray()
+        );
+        return balances;
+    }
+
+    public synchronized long nextTransactionId() {
+        if (nextId == maxId) {
+            maxId = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                Long value = jdbcTemplate.queryForObject(SELECT_NEXT_ID, Long.class);
+                jdbcTemplate.update(UPDATE_NEXT_ID, ID_ALLOCATION_SIZE);
+                return value;
+            }));
+            nextId = maxId - ID_ALLOCATION_SIZE;
+        }
+        return ++nextId;
+    }
+
+    public boolean acquireLease(int ttl) {
+        return jdbcTemplate.update(INSERT_LEASE, leaseOwner, ttl) > 0
+                || jdbcTemplate.update(UPDATE_LEASE, leaseOwner, ttl, leaseOwner) > 0;
+    }
+
+    public void releaseLease() {
+        jdbcTemplate.update(DELETE_LEASE, leaseOwner);
+    }
+
+    public long getCheckpoint(int shard) {
+        jdbcTemplate.update(INSERT_CHECKPOINT, shard);
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(SELECT_CHECKPOINT, Long.class, shard));
+    }
+
+    public void write(int shard, List<LedgerEntry> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.queryForObject(SELECT_LEASE, Long.class, leaseOwner) == 0) {
+                throw new IllegalStateException("Ledger lease is not held by this instance");
+            }
+            long checkpoint = Objects.requireNonNull(
+                    jdbcTemplate.queryForObject(SELECT_CHECKPOINT_FOR_UPDATE, Long.class, shard)
+            );
+            List<LedgerEntry> unwritten = entries.stream()
+                    .filter(entry -> entry.getSequence() > checkpoint)
+                    .toList();
+            if (!unwritten.isEmpty()) {
+                insert(shard, unwritten);
+            }
+        });
+    }
+
+    private void insert(int shard, List<LedgerEntry> entries) {
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        Map<Long, Long> counts = new HashMap<>();
+        Map<Long, Long> ownerCounts = new TreeMap<>();
+        DailyTotals dailyTotals = new DailyTotals();
+        for (LedgerEntry entry : entries) {
+            balances.put(entry.getFromId(), entry.getFromBalance());
+            balances.put(entry.getToId(), entry.getToBalance());
+            counts.merge(entry.getFromId(), 1L, Long::sum);
+            if (entry.getToId() != entry.getFromId()) {
+                counts.merge(entry.getToId(), 1L, Long::sum);
+            }
+            ownerCounts.merge(entry.getUserId(), 1L, Long::sum);
+            dailyTotals.add(
+                    entry.getFromId(), entry.getToId(), entry.getUserId(), entry.getUserId(),
+                    entry.getAmount(), entry.getDate()
+            );
+        }
+        List<Object[]> balanceArgs = balances.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), counts.get(e.getKey()), e.getKey()})
+                .toList();
+        List<Object[]> ownerCountArgs = ownerCounts.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue()})
+                .toList();
+        List<Object[]> transactionArgs = entries.stream()
+                .map(e -> new Object[]{
+                        e.getTransactionId(), e.getFromId(), e.getToId(), e.getUserId(), e.getUserId(),
+                        e.getAmount(), e.getFromBalance(), e.getToBalance(),
+                        e.getComment(), Timestamp.valueOf(e.getDate())
+                })
+                .toList();
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE, balanceArgs);
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactionArgs);
+        jdbcTemplate.batchUpdate(INCREMENT_OWNER_COUNT, ownerCountArgs);
+        jdbcTemplate.batchUpdate(DailyTotals.INCREMENT_CARD, dailyTotals.toCardBatchArgs());
+        jdbcTemplate.batchUpdate(DailyTotals.INCREMENT_OWNER, dailyTotals.toOwnerBatchArgs());
+        jdbcTemplate.update(UPDATE_CHECKPOINT, entries.get(entries.size() - 1).getSequence(), shard);
+    }
+}
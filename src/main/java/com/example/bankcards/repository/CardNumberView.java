@@ -0,0 +1,10 @@
+package com.example.bankcards.repository;
+
+public interface CardNumberView {
+
+    Long getId();
+
+    String getNumber();
+
+    int getKeyVersion();
+}
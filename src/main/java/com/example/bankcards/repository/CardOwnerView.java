@@ -0,0 +1,8 @@
+package com.example.bankcards.repository;
+
+public interface CardOwnerView {
+
+    Long getUserId();
+
+    long getTransactionCount();
+}
@@ -1,13 +1,62 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
 
-    Page<Card> findByUserId(Long userId, Pageable pageable);
+    String SELECT_VIEW = "SELECT c.id AS id, c.last4 AS last4, c.holder AS holder, c.expiryDate AS expiryDate, "
+            + "c.status AS status, c.balance AS balance, c.deleted AS deleted FROM Card c";
+
+    @Query(value = SELECT_VIEW, countQuery = "SELECT COUNT(c) FROM Card c")
+    Page<CardView> findViews(Pageable pageable);
+
+    @Query(SELECT_VIEW)
+    Slice<CardView> findViewSlice(Pageable pageable);
+
+    @Query(value = SELECT_VIEW + " WHERE c.user.id = :userId",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.user.id = :userId")
+    Page<CardView> findViewsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_VIEW + " WHERE c.user.id = :userId")
+    Slice<CardView> findViewSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SELECT_VIEW + " WHERE c.id = :id")
+    Optional<CardView> findViewById(@Param("id") Long id);
+
+    @Query(SELECT_VIEW + " WHERE c.numberHash = :numberHash")
+    Optional<CardView> findViewByNumberHash(@Param("numberHash") byte[] numberHash);
+
+    @Query("SELECT c.user.id AS userId, c.transactionCount AS transactionCount FROM Card c WHERE c.id = :id")
+    Optional<CardOwnerView> findOwnerViewById(@Param("id") Long id);
+
+    @Query("SELECT c.id FROM Card c WHERE c.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids ORDER BY c.id")
+    List<Card> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id AS id, c.number AS number, c.keyVersion AS keyVersion FROM Card c "
+            + "WHERE c.last4 IS NULL AND c.id > :id ORDER BY c.id")
+    List<CardNumberView> findWithoutLast4(@Param("id") Long id, Limit limit);
+
+    @Query("SELECT c.id AS id, c.number AS number, c.keyVersion AS keyVersion FROM Card c "
+            + "WHERE c.keyVersion <> :version AND c.id > :id ORDER BY c.id")
+    List<CardNumberView> findByKeyVersionNot(@Param("version") int version, @Param("id") Long id, Limit limit);
 
-    boolean existsByNumberHash(String numberHash);
+    @Query("SELECT COUNT(c) FROM Card c WHERE c.keyVersion <> :version")
+    long countByKeyVersionNot(@Param("version") int version);
 }
@@ -0,0 +1,33 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.CardUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface CardView {
+
+    Long getId();
+
+    String getLast4();
+
+    String getHolder();
+
+    LocalDate getExpiryDate();
+
+    Card.Status getStatus();
+
+    BigDecimal getBalance();
+
+    boolean isDeleted();
+
+    default CardDto toDto() {
+        return new CardDto(
+                getId(), CardUtil.mask(getLast4()),
+                getHolder(), getExpiryDate(), Card.Status.of(getStatus(), getExpiryDate()), getBalance(),
+                isDeleted()
+        );
+    }
+}
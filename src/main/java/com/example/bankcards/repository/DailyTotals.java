@@ -0,0 +1,76 @@
+package com.example.bankcards.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class DailyTotals {
+
+    public static final String INCREMENT_CARD = "INSERT INTO card_daily_totals "
+            + "(card_id, date, in_sum, out_sum, transaction_count) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE in_sum = in_sum + VALUES(in_sum), out_sum = out_sum + VALUES(out_sum), "
+            + "transaction_count = transaction_count + VALUES(transaction_count)";
+    public static final String INCREMENT_OWNER = "INSERT INTO owner_daily_totals "
+            + "(user_id, date, in_sum, out_sum, transaction_count) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE in_sum = in_sum + VALUES(in_sum), out_sum = out_sum + VALUES(out_sum), "
+            + "transaction_count = transaction_count + VALUES(transaction_count)";
+
+    private final Map<Long, Map<LocalDate, Totals>> cards = new TreeMap<>();
+    private final Map<Long, Map<LocalDate, Totals>> owners = new TreeMap<>();
+
+    public void add(long fromId, long toId, long fromUserId, long toUserId, BigDecimal amount, LocalDateTime date) {
+        LocalDate day = date.toLocalDate();
+        get(cards, toId, day).add(amount, BigDecimal.ZERO);
+        if (fromId != toId) {
+            get(cards, fromId, day).add(BigDecimal.ZERO, amount);
+        }
+        if (fromUserId != toUserId) {
+            get(owners, toUserId, day).add(amount, BigDecimal.ZERO);
+            get(owners, fromUserId, day).add(BigDecimal.ZERO, amount);
+        } else {
+            get(owners, fromUserId, day).add(fromId == toId ? amount : BigDecimal.ZERO, BigDecimal.ZERO);
+        }
+    }
+
+    public boolean isEmpty() {
+        return cards.isEmpty();
+    }
+
+    public List<Object[]> toCardBatchArgs() {
+        return toBatchArgs(cards);
+    }
+
+    public List<Object[]> toOwnerBatchArgs() {
+        return toBatchArgs(owners);
+    }
+
+    private List<Object[]> toBatchArgs(Map<Long, Map<LocalDate, Totals>> totals) {
+        List<Object[]> args = new ArrayList<>();
+        totals.forEach((id, days) -> days.forEach((day, total) -> args.add(new Object[]{
+                id, Date.valueOf(day), total.in, total.out, total.count
+        })));
+        return args;
+    }
+
+    private Totals get(Map<Long, Map<LocalDate, Totals>> totals, long id, LocalDate day) {
+        return totals.computeIfAbsent(id, key -> new TreeMap<>()).computeIfAbsent(day, d -> new Totals());
+    }
+
+    private static class Totals {
+
+        private BigDecimal in = BigDecimal.ZERO;
+        private BigDecimal out = BigDecimal.ZERO;
+        private long count;
+
+        private void add(BigDecimal in, BigDecimal out) {
+            this.in = this.in.add(in);
+            this.out = this.out.add(out);
+            this.count++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.transaction.DailyTotalDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface TransactionHistoryRepository {
+
+    List<TransactionDto> findByCardIdsBefore(
+            Collection<Long> cardIds, LocalDateTime date, long id, int limit, LocalDateTime archivedBefore
+    );
+
+    List<TransactionDto> findArchivedByCardIdsBefore(Collection<Long> cardIds, LocalDateTime date, long id, int limit);
+
+    List<TransactionDto> findByOwnerIdBefore(
+            Long userId, LocalDateTime date, long id, int limit, LocalDateTime archivedBefore
+    );
+
+    List<TransactionDto> findArchivedByOwnerIdBefore(Long userId, LocalDateTime date, long id, int limit);
+
+    Slice<TransactionDto> findSliceByCardIds(Collection<Long> cardIds, LocalDateTime archivedBefore, Pageable pageable);
+
+    Slice<TransactionDto> findSliceByOwnerId(Long userId, LocalDateTime archivedBefore, Pageable pageable);
+
+    Stream<TransactionDto> streamByOwnerId(Long userId, LocalDateTime since);
+
+    Stream<TransactionDto> streamArchivedByOwnerId(Long userId, LocalDateTime before);
+
+    Stream<TransactionDto> streamByCardIds(Collection<Long> cardIds, LocalDateTime since);
+
+    BigDecimal findBalanceBefore(Long cardId, LocalDateTime date, LocalDateTime archivedBefore);
+
+    List<DailyTotalDto> findDailyTotalsByCardId(Long cardId, LocalDate from, LocalDate to);
+
+    List<DailyTotalDto> findDailyTotalsByOwnerId(Long userId, LocalDate from, LocalDate to);
+
+    long getTransactionCountByOwnerId(Long userId);
+
+    void incrementTransactionCounts(Map<Long, Long> countsByOwnerId);
+
+    void incrementDailyTotals(DailyTotals totals);
+}
@@ -0,0 +1,337 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.transaction.DailyTotalDto;
+import com.example.bankcards.util.StreamUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    private static final String TRANSACTIONS = "transactions";
+    private static final String ARCHIVE = "transactions_archive";
+    private static final String COLUMNS = "id, from_id, to_id, amount, comment, date";
+    private static final String SEEK_BRANCH = "(SELECT " + COLUMNS + " FROM %1$s "
+            + "WHERE %2$s AND date >= ? AND (date < ? OR (date = ? AND id < ?)) ORDER BY date DESC, id DESC LIMIT ?)";
+    private static final String SEEK_ORDER = " ORDER BY date DESC, id DESC LIMIT ?";
+    private static final String PAGE_BRANCH = "(SELECT " + COLUMNS + " FROM %1$s "
+            + "WHERE %2$s AND date >= ? AND date < ? ORDER BY %3$s LIMIT ?)";
+    private static final String FROM_OWNER = "from_user_id = ?";
+    private static final String TO_OWNER = "to_user_id = ? AND from_user_id <> ?";
+    private static final String FROM_CARDS = "from_id IN (%s)";
+    private static final String TO_CARDS = "to_id IN (%1$s) AND from_id NOT IN (%1$s)";
+    private static final String STREAM_BRANCH = "SELECT " + COLUMNS + " FROM %1$s "
+            + "WHERE %2$s AND date >= ? AND date < ? ORDER BY date, id";
+    private static final String STREAM_BY_CARDS = "SELECT " + COLUMNS + " FROM transactions "
+            + "WHERE (from_id IN (%1$s) OR to_id IN (%1$s)) AND date >= ? ORDER BY date, id";
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    private static final Comparator<TransactionDto> CHRONOLOGICAL =
+            Comparator.comparing(TransactionDto::getDate).thenComparing(TransactionDto::getId);
+    private static final String LAST_BALANCE = "(SELECT date, id, from_balance_after AS balance FROM %1$s "
+            + "WHERE from_id = ? AND date < ? ORDER BY date DESC, id DESC LIMIT 1) UNION ALL "
+            + "(SELECT date, id, to_balance_after AS balance FROM %1$s "
+            + "WHERE to_id = ? AND date < ? ORDER BY date DESC, id DESC LIMIT 1) ORDER BY date DESC, id DESC LIMIT 1";
+    private static final String LAST_SNAPSHOT = "SELECT taken_at, balance FROM card_balance_snapshots "
+            + "WHERE card_id = ? AND taken_at <= ? ORDER BY taken_at DESC LIMIT 1";
+    private static final String REPLAY = "SELECT COALESCE(SUM(amount), 0) FROM ("
+            + "(SELECT amount FROM %1$s WHERE to_id = ? AND date >= ? AND date < ?) UNION ALL "
+            + "(SELECT -amount FROM %1$s WHERE from_id = ? AND to_id <> ? AND date >= ? AND date < ?)) r";
+    private static final Timestamp BEGINNING = Timestamp.valueOf("1970-01-01 00:00:00");
+    private static final Timestamp END = Timestamp.valueOf("9999-12-31 23:59:59");
+    private static final String SELECT_OWNER_COUNT = "SELECT transaction_count FROM user_transaction_counts WHERE user_id = ?";
+    private static final String INCREMENT_OWNER_COUNT = "INSERT INTO user_transaction_counts (user_id, transaction_count) "
+            + "VALUES (?, ?) ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count)";
+    private static final String SELECT_CARD_DAILY_TOTALS = "SELECT date, in_sum, out_sum, transaction_count "
+            + "FROM card_daily_totals WHERE card_id = ? AND date BETWEEN ? AND ? ORDER BY date";
+    private static final String SELECT_OWNER_DAILY_TOTALS = "SELECT date, in_sum, out_sum, transaction_count "
+            + "FROM owner_daily_totals WHERE user_id = ? AND date BETWEEN ? AND ? ORDER BY date";
+    private static final RowMapper<DailyTotalDto> DAILY_TOTAL_MAPPER = (rs, rowNum) -> new DailyTotalDto(
+            rs.getDate(1).toLocalDate(), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getLong(4)
+    );
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id", "from", "from_id", "to", "to_id", "amount", "amount", "comment", "comment", "date", "date"
+    );
+    private static final RowMapper<TransactionDto> ROW_MAPPER = (rs, rowNum) -> new TransactionDto(
+            rs.getLong("id"), rs.getLong("from_id"), rs.getLong("to_id"),
+            rs.getBigDecimal("amount"), rs.getString("comment"),
+            rs.getTimestamp("date").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<TransactionDto> findByCardIdsBefore(
+            Collection<Long> cardIds, LocalDateTime date, long id, int limit, LocalDateTime archivedBefore
+    ) {
+        return seekByCardIds(TRANSACTIONS, cardIds, date, id, limit, timestamp(archivedBefore));
+    }
+
+    @Override
+    public List<TransactionDto> findArchivedByCardIdsBefore(
+            Collection<Long> cardIds, LocalDateTime date, long id, int limit
+    ) {
+        return seekByCardIds(ARCHIVE, cardIds, date, id, limit, BEGINNING);
+    }
+
+    @Override
+    public List<TransactionDto> findByOwnerIdBefore(
+            Long userId, LocalDateTime date, long id, int limit, LocalDateTime archivedBefore
+    ) {
+        return seekByOwnerId(TRANSACTIONS, userId, date, id, limit, timestamp(archivedBefore));
+    }
+
+    @Override
+    public List<TransactionDto> findArchivedByOwnerIdBefore(Long userId, LocalDateTime date, long id, int limit) {
+        return seekByOwnerId(ARCHIVE, userId, date, id, limit, BEGINNING);
+    }
+
+    private List<TransactionDto> seekByCardIds(
+            String table, Collection<Long> cardIds, LocalDateTime date, long id, int limit, Timestamp since
+    ) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        Timestamp timestamp = Timestamp.valueOf(date);
+        StringJoiner sql = new StringJoiner(" UNION ", "", SEEK_ORDER);
+        List<Object> args = new ArrayList<>(cardIds.size() * 12 + 1);
+        for (Long cardId : cardIds) {
+            for (String column : new String[]{"from_id = ?", "to_id = ?"}) {
+                sql.add(SEEK_BRANCH.formatted(table, column));
+                Collections.addAll(args, cardId, since, timestamp, timestamp, id, limit);
+            }
+        }
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    private List<TransactionDto> seekByOwnerId(
+            String table, Long userId, LocalDateTime date, long id, int limit, Timestamp since
+    ) {
+        Timestamp timestamp = Timestamp.valueOf(date);
+        String sql = SEEK_BRANCH.formatted(table, FROM_OWNER) + " UNION ALL "
+                + SEEK_BRANCH.formatted(table, TO_OWNER) + SEEK_ORDER;
+        return jdbcTemplate.query(
+                sql, ROW_MAPPER,
+                userId, since, timestamp, timestamp, id, limit,
+                userId, userId, since, timestamp, timestamp, id, limit,
+                limit
+        );
+    }
+
+    @Override
+    public Slice<TransactionDto> findSliceByCardIds(
+            Collection<Long> cardIds, LocalDateTime archivedBefore, Pageable pageable
+    ) {
+        if (cardIds.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        String placeholders = String.join(", ", Collections.nCopies(cardIds.size(), "?"));
+        List<Object> toArgs = new ArrayList<>(cardIds);
+        toArgs.addAll(cardIds);
+        return slice(
+                FROM_CARDS.formatted(placeholders), List.copyOf(cardIds),
+                TO_CARDS.formatted(placeholders), toArgs,
+                archivedBefore, pageable
+        );
+    }
+
+    @Override
+    public Slice<TransactionDto> findSliceByOwnerId(Long userId, LocalDateTime archivedBefore, Pageable pageable) {
+        return slice(FROM_OWNER, List.of(userId), TO_OWNER, List.of(userId, userId), archivedBefore, pageable);
+    }
+
+    private Slice<TransactionDto> slice(
+            String from, List<Object> fromArgs, String to, List<Object> toArgs,
+            LocalDateTime archivedBefore, Pageable pageable
+    ) {
+        String order = orderBy(pageable.getSort());
+        int pageSize = pageable.getPageSize();
+        long branchLimit = pageable.getOffset() + pageSize + 1;
+        Timestamp boundary = timestamp(archivedBefore);
+        StringJoiner sql = new StringJoiner(" UNION ALL ", "", " ORDER BY " + order + " LIMIT ? OFFSET ?");
+        List<Object> args = new ArrayList<>();
+        for (String table : archivedBefore == null ? List.of(TRANSACTIONS) : List.of(TRANSACTIONS, ARCHIVE)) {
+            Timestamp lower = table.equals(TRANSACTIONS) ? boundary : BEGINNING;
+            Timestamp upper = table.equals(TRANSACTIONS) ? END : boundary;
+            sql.add(PAGE_BRANCH.formatted(table, from, order));
+            args.addAll(fromArgs);
+            Collections.addAll(args, lower, upper, branchLimit);
+            sql.add(PAGE_BRANCH.formatted(table, to, order));
+            args.addAll(toArgs);
+            Collections.addAll(args, lower, upper, branchLimit);
+        }
+        Collections.addAll(args, pageSize + 1, pageable.getOffset());
+        List<TransactionDto> content = jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+        boolean hasNext = content.size() > pageSize;
+        return new SliceImpl<>(hasNext ? content.subList(0, pageSize) : content, pageable, hasNext);
+    }
+
+    @Override
+    public Stream<TransactionDto> streamByOwnerId(Long userId, LocalDateTime since) {
+        return streamByOwnerId(TRANSACTIONS, userId, timestamp(since), END);
+    }
+
+    @Override
+    public Stream<TransactionDto> streamArchivedByOwnerId(Long userId, LocalDateTime before) {
+        return streamByOwnerId(ARCHIVE, userId, BEGINNING, timestamp(before));
+    }
+
+    private Stream<TransactionDto> streamByOwnerId(String table, Long userId, Timestamp from, Timestamp to) {
+        return StreamUtil.merge(
+                () -> stream(STREAM_BRANCH.formatted(table, FROM_OWNER), userId, from, to),
+                () -> stream(STREAM_BRANCH.formatted(table, TO_OWNER), userId, userId, from, to),
+                CHRONOLOGICAL
+        );
+    }
+
+    @Override
+    public Stream<TransactionDto> streamByCardIds(Collection<Long> cardIds, LocalDateTime since) {
+        if (cardIds.isEmpty()) {
+            return Stream.empty();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(cardIds.size(), "?"));
+        List<Object> args = new ArrayList<>(cardIds);
+        args.addAll(cardIds);
+        args.add(timestamp(since));
+        return stream(STREAM_BY_CARDS.formatted(placeholders), args.toArray());
+    }
+
+    @Override
+    public BigDecimal findBalanceBefore(Long cardId, LocalDateTime date, LocalDateTime archivedBefore) {
+        Timestamp timestamp = Timestamp.valueOf(date);
+        Timestamp boundary = timestamp(archivedBefore);
+        boolean hot = timestamp.after(boundary);
+        List<Optional<BigDecimal>> last = hot ? lastBalance(TRANSACTIONS, cardId, timestamp) : List.of();
+        if (last.isEmpty() && archivedBefore != null) {
+            last = lastBalance(ARCHIVE, cardId, timestamp);
+        }
+        if (last.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        if (last.get(0).isPresent()) {
+            return last.get(0).get();
+        }
+        Timestamp from = BEGINNING;
+        BigDecimal balance = BigDecimal.ZERO;
+        List<Object[]> snapshot = jdbcTemplate.query(
+                LAST_SNAPSHOT, (rs, rowNum) -> new Object[]{rs.getTimestamp(1), rs.getBigDecimal(2)},
+                cardId, timestamp
+        );
+        if (!snapshot.isEmpty()) {
+            from = (Timestamp) snapshot.get(0)[0];
+            balance = (BigDecimal) snapshot.get(0)[1];
+        }
+        if (hot) {
+            balance = balance.add(replay(TRANSACTIONS, cardId, from.after(boundary) ? from : boundary, timestamp));
+        }
+        if (archivedBefore != null && from.before(boundary)) {
+            balance = balance.add(replay(ARCHIVE, cardId, from, hot ? boundary : timestamp));
+        }
+        return balance;
+    }
+
+    @Override
+    public List<DailyTotalDto> findDailyTotalsByCardId(Long cardId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                SELECT_CARD_DAILY_TOTALS, DAILY_TOTAL_MAPPER, cardId, Date.valueOf(from), Date.valueOf(to)
+        );
+    }
+
+    @Override
+    public List<DailyTotalDto> findDailyTotalsByOwnerId(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                SELECT_OWNER_DAILY_TOTALS, DAILY_TOTAL_MAPPER, userId, Date.valueOf(from), Date.valueOf(to)
+        );
+    }
+
+    @Override
+    public long getTransactionCountByOwnerId(Long userId) {
+        List<Long> counts = jdbcTemplate.queryForList(SELECT_OWNER_COUNT, Long.class, userId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    @Override
+    public void incrementTransactionCounts(Map<Long, Long> countsByOwnerId) {
+        if (countsByOwnerId.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new TreeMap<>(countsByOwnerId).entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue()})
+                .toList();
+        jdbcTemplate.batchUpdate(INCREMENT_OWNER_COUNT, args);
+    }
+
+    @Override
+    public void incrementDailyTotals(DailyTotals totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DailyTotals.INCREMENT_CARD, totals.toCardBatchArgs());
+        jdbcTemplate.batchUpdate(DailyTotals.INCREMENT_OWNER, totals.toOwnerBatchArgs());
+    }
+
+    private List<Optional<BigDecimal>> lastBalance(String table, Long cardId, Timestamp date) {
+        return jdbcTemplate.query(
+                LAST_BALANCE.formatted(table), (rs, rowNum) -> Optional.ofNullable(rs.getBigDecimal("balance")),
+                cardId, date, cardId, date
+        );
+    }
+
+    private BigDecimal replay(String table, Long cardId, Timestamp from, Timestamp to) {
+        BigDecimal replayed = jdbcTemplate.queryForObject(
+                REPLAY.formatted(table), BigDecimal.class,
+                cardId, from, to,
+                cardId, cardId, from, to
+        );
+        return replayed == null ? BigDecimal.ZERO : replayed;
+    }
+
+    private Timestamp timestamp(LocalDateTime date) {
+        return date == null ? BEGINNING : Timestamp.valueOf(date);
+    }
+
+    private Stream<TransactionDto> stream(String sql, Object... args) {
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+            statement.setFetchSize(STREAMING_FETCH_SIZE);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, ROW_MAPPER);
+    }
+
+    private String orderBy(Sort sort) {
+        StringJoiner order = new StringJoiner(", ");
+        Sort.Direction tieBreak = Sort.Direction.DESC;
+        for (Sort.Order sortOrder : sort) {
+            String column = SORT_COLUMNS.get(sortOrder.getProperty());
+            if (column != null) {
+                order.add(column + " " + sortOrder.getDirection().name());
+                tieBreak = sortOrder.getDirection();
+            }
+        }
+        if (order.length() == 0) {
+            order.add("date DESC");
+        }
+        return order.add("id " + tieBreak.name()).toString();
+    }
+}
@@ -1,16 +1,18 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.entity.Transaction;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionHistoryRepository {
 
-    Page<Transaction> findByFromIdOrToId(Long fromId, Long toId, Pageable pageable);
+    String SELECT_DTO = "SELECT new com.example.bankcards.dto.TransactionDto("
+            + "t.id, t.from.id, t.to.id, t.amount, t.comment, t.date) FROM Transaction t";
 
-    @Query("SELECT t FROM Transaction t WHERE t.from.user.id = :userId OR t.to.user.id = :userId")
-    Page<Transaction> findByUserId(@Param("userId") Long userId, Pageable pageable);
+    @Query(SELECT_DTO + " WHERE t.from.user.id = :userId OR t.to.user.id = :userId")
+    Slice<TransactionDto> findSliceByUserId(@Param("userId") Long userId, Pageable pageable);
 }
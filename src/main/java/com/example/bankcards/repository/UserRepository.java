@@ -1,11 +1,34 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.security.TokenState;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    String SELECT_DTO = "SELECT new com.example.bankcards.dto.UserDto(u.id, u.username, u.role, u.enabled) FROM User u";
+
     User findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    @Query(value = SELECT_DTO, countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserDto> findDtos(Pageable pageable);
+
+    @Query(SELECT_DTO)
+    Slice<UserDto> findDtoSlice(Pageable pageable);
+
+    @Query(SELECT_DTO + " WHERE u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.bankcards.security.TokenState(u.tokenVersion, u.enabled) FROM User u WHERE u.id = :id")
+    TokenState findTokenStateById(@Param("id") Long id);
 }
@@ -0,0 +1,195 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ApiError;
+import com.example.bankcards.util.ResponseUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    public static final String PATH = "/api/auth";
+
+    private static final int MAX_BODY_SIZE = 4096;
+
+    private final RateLimiter ipLimiter;
+    private final RateLimiter usernameLimiter;
+    private final ObjectMapper objectMapper;
+    private final byte[] rejectedBody;
+    private final String ipRetryAfter;
+    private final String usernameRetryAfter;
+    private final Counter ipRejections;
+    private final Counter usernameRejections;
+
+    public AuthRateLimitFilter(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${security.rate-limit.ip.capacity}") int ipCapacity,
+            @Value("${security.rate-limit.ip.period}") int ipPeriod,
+            @Value("${security.rate-limit.username.capacity}") int usernameCapacity,
+            @Value("${security.rate-limit.username.period}") int usernamePeriod,
+            @Value("${security.rate-limit.idle-time}") int idleTime,
+            @Value("${security.rate-limit.maximum-size}") long maximumSize
+    ) throws IOException {
+        this.objectMapper = objectMapper;
+        this.ipLimiter = new RateLimiter(
+                ipCapacity, Duration.ofSeconds(ipPeriod), Duration.ofSeconds(idleTime), maximumSize
+        );
+        this.usernameLimiter = new RateLimiter(
+                usernameCapacity, Duration.ofSeconds(usernamePeriod), Duration.ofSeconds(idleTime), maximumSize
+        );
+        this.rejectedBody = objectMapper.writeValueAsBytes(ApiError.TOO_MANY_REQUESTS.build().getBody());
+        this.ipRetryAfter = toRetryAfter(ipLimiter.getRetryAfter());
+        this.usernameRetryAfter = toRetryAfter(usernameLimiter.getRetryAfter());
+        this.ipRejections = meterRegistry.counter("auth.rate_limit.rejections", "bucket", "ip");
+        this.usernameRejections = meterRegistry.counter("auth.rate_limit.rejections", "bucket", "username");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !(path.equals(PATH) || path.startsWith(PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+            @NotNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!ipLimiter.tryAcquire(request.getRemoteAddr())) {
+            ipRejections.increment();
+            reject(response, ipRetryAfter);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_SIZE + 1);
+        if (body.length > MAX_BODY_SIZE) {
+            ResponseUtil.sendResponse(
+                    ApiError.EXCEPTION.build(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large"), response
+            );
+            return;
+        }
+        String username = extractUsername(body);
+        if (username != null && !usernameLimiter.tryAcquire(username.toLowerCase(Locale.ROOT))) {
+            usernameRejections.increment();
+            reject(response, usernameRetryAfter);
+            return;
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private String extractUsername(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isTextual() ? username.asText() : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, String retryAfter) throws IOException {
+        response.setStatus(ApiError.TOO_MANY_REQUESTS.getHttpStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentLength(rejectedBody.length);
+        response.getOutputStream().write(rejectedBody);
+    }
+
+    private static String toRetryAfter(Duration duration) {
+        return String.valueOf(Math.max(1, (duration.toMillis() + 999) / 1000));
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream stream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return stream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException ex) {
+                        listener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return stream.read();
+                }
+
+                @Override
+                public int read(byte @NotNull [] b, int off, int len) {
+                    return stream.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -40,12 +40,16 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         try {
             String token = request.getHeader(HEADER);
             if (token != null && token.startsWith(PREFIX)) {
-                Claims claims = jwtService.parseToken(token.replace(PREFIX, ""));
+                Claims claims = jwtService.parseToken(token.substring(PREFIX.length()));
 
-                User user = userDetailsService.loadUserByUsername(claims.getSubject());
-                if (user != null
-                        && user.getPassword().equals(claims.get("pwd", String.class))
-                        && user.isEnabled()) {
+                Long userId = claims.get(JwtService.USER_ID, Long.class);
+                Integer version = claims.get(JwtService.VERSION, Integer.class);
+                boolean refresh = JwtService.REFRESH.equals(claims.get(JwtService.TYPE, String.class));
+                TokenState state = userId != null && !refresh ? userDetailsService.loadTokenState(userId) : null;
+                if (state != null
+                        && version != null && state.getTokenVersion() == version
+                        && state.isEnabled()) {
+                    User user = jwtService.getPrincipal(claims);
                     UsernamePasswordAuthenticationToken authentication
                             = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,42 +1,150 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    public static final String USER_ID = "uid";
+    public static final String ROLE = "role";
+    public static final String VERSION = "ver";
+    public static final String TYPE = "typ";
+    public static final String REFRESH = "refresh";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    });
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secret;
     @Value("${jwt.expiry-time}")
     private int expiryTime;
+    @Value("${jwt.refresh.expiry-time}")
+    private int refreshExpiryTime;
+    @Value("${jwt.cache.maximum-size}")
+    private long cacheSize;
+
+    private SecretKey key;
+    private JwtParser parser;
+    private Cache<ByteBuffer, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified_tokens");
+    }
 
     public String generateToken(User user) {
         return Jwts.builder()
                 .subject(user.getUsername())
-                .claim("pwd", user.getPassword())
+                .claim(USER_ID, user.getId())
+                .claim(ROLE, user.getRole().name())
+                .claim(VERSION, user.getTokenVersion())
                 .issuedAt(Date.from(Instant.now()))
                 .expiration(Timestamp.from(Instant.now().plus(expiryTime, ChronoUnit.SECONDS)))
-                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .signWith(key)
+                .compact();
+    }
+
+    public String generateRefreshToken(User user) {
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(user.getUsername())
+                .claim(TYPE, REFRESH)
+                .claim(USER_ID, user.getId())
+                .claim(ROLE, user.getRole().name())
+                .claim(VERSION, user.getTokenVersion())
+                .issuedAt(Date.from(Instant.now()))
+                .expiration(Timestamp.from(Instant.now().plus(refreshExpiryTime, ChronoUnit.SECONDS)))
+                .signWith(key)
                 .compact();
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        ByteBuffer digest = ByteBuffer.wrap(DIGEST.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    public User getPrincipal(Claims claims) {
+        User user = new User();
+        user.setId(claims.get(USER_ID, Long.class));
+        user.setUsername(claims.getSubject());
+        user.setRole(Role.valueOf(claims.get(ROLE, String.class)));
+        user.setTokenVersion(claims.get(VERSION, Integer.class));
+        user.setEnabled(true);
+        return user;
+    }
+
+    private static class ClaimsExpiry implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(@NotNull ByteBuffer key, @NotNull Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return 0;
+            }
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                @NotNull ByteBuffer key, @NotNull Claims claims, long currentTime, long currentDuration
+        ) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(
+                @NotNull ByteBuffer key, @NotNull Claims claims, long currentTime, long currentDuration
+        ) {
+            return currentDuration;
+        }
     }
 }
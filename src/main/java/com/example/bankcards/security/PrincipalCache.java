@@ -0,0 +1,73 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, User> principals;
+    private final Cache<Long, TokenState> tokenStates;
+    private final Counter invalidations;
+
+    public PrincipalCache(
+            MeterRegistry meterRegistry,
+            @Value("${security.principal-cache.maximum-size}") long maximumSize,
+            @Value("${security.principal-cache.expiry-time}") int expiryTime
+    ) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expiryTime))
+                .recordStats()
+                .build();
+        this.tokenStates = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expiryTime))
+                .recordStats()
+                .build();
+        this.invalidations = meterRegistry.counter("cache.invalidations", "cache", "principals");
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+        CaffeineCacheMetrics.monitor(meterRegistry, tokenStates, "token_states");
+    }
+
+    public User get(String username, Function<String, User> loader) {
+        return principals.get(username, loader);
+    }
+
+    public TokenState getTokenState(Long userId, Function<Long, TokenState> loader) {
+        return tokenStates.get(userId, loader);
+    }
+
+    public void evict(User user) {
+        String username = user.getUsername();
+        Long userId = user.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(username, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                invalidate(username, userId);
+            }
+        });
+    }
+
+    private void invalidate(String username, Long userId) {
+        principals.invalidate(username);
+        tokenStates.invalidate(userId);
+        invalidations.increment();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final long emissionInterval;
+    private final long tolerance;
+    private final long origin = System.nanoTime();
+
+    public RateLimiter(int capacity, Duration period, Duration idleTime, long maximumSize) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTime)
+                .build();
+        this.emissionInterval = period.toNanos() / capacity;
+        this.tolerance = emissionInterval * capacity;
+    }
+
+    // Token bucket expressed as GCRA: a bucket is a single theoretical arrival time updated with CAS.
+    public boolean tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionInterval;
+            if (next - now > tolerance) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return Duration.ofNanos(emissionInterval);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.RevokedToken;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenRevocations {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh.revocation.expected-insertions}")
+    private int expectedInsertions;
+    @Value("${jwt.refresh.revocation.false-positive-rate}")
+    private double falsePositiveRate;
+
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            revoked.put(token.getJti(), token.getExpiresAt());
+            bloomFilter.put(token.getJti());
+        }
+        Gauge.builder("auth.refresh.revoked", revoked, Map::size).register(meterRegistry);
+    }
+
+    public boolean isRevoked(String jti) {
+        return bloomFilter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    public boolean revoke(String jti, LocalDateTime expiresAt) {
+        try {
+            revokedTokenRepository.insert(jti, expiresAt);
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+        synchronized (this) {
+            revoked.put(jti, expiresAt);
+            bloomFilter.put(jti);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.revocation.purge-interval}", timeUnit = TimeUnit.SECONDS)
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.deleteExpired(now);
+        synchronized (this) {
+            revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+            BloomFilter rebuilt = new BloomFilter(expectedInsertions, falsePositiveRate);
+            revoked.keySet().forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+        }
+    }
+}
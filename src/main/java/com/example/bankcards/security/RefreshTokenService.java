@@ -0,0 +1,56 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidTokenException;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final JwtService jwtService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenRevocations revocations;
+
+    public AuthResponse issue(User user) {
+        return new AuthResponse(jwtService.generateToken(user), jwtService.generateRefreshToken(user));
+    }
+
+    public AuthResponse refresh(String refreshToken) {
+        Claims claims = parse(refreshToken);
+        User user = jwtService.getPrincipal(claims);
+        TokenState state = userDetailsService.loadTokenState(user.getId());
+        if (state == null || !state.isEnabled() || state.getTokenVersion() != user.getTokenVersion()) {
+            throw new InvalidTokenException();
+        }
+        if (!revocations.revoke(claims.getId(), toLocalDateTime(claims))) {
+            throw new InvalidTokenException();
+        }
+        return issue(user);
+    }
+
+    public void revoke(String refreshToken) {
+        Claims claims = parse(refreshToken);
+        revocations.revoke(claims.getId(), toLocalDateTime(claims));
+    }
+
+    private Claims parse(String refreshToken) {
+        Claims claims = jwtService.parseToken(refreshToken);
+        if (!JwtService.REFRESH.equals(claims.get(JwtService.TYPE, String.class))
+                || claims.getId() == null
+                || revocations.isRevoked(claims.getId())) {
+            throw new InvalidTokenException();
+        }
+        return claims;
+    }
+
+    private static LocalDateTime toLocalDateTime(Claims claims) {
+        return LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+    }
+}
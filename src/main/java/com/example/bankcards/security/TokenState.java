@@ -0,0 +1,12 @@
+package com.example.bankcards.security;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class TokenState {
+
+    private final int tokenVersion;
+    private final boolean enabled;
+}
@@ -11,9 +11,14 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     public User loadUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return principalCache.get(username, userRepository::findByUsername);
+    }
+
+    public TokenState loadTokenState(Long userId) {
+        return principalCache.getTokenState(userId, userRepository::findTokenStateById);
     }
 }
@@ -0,0 +1,222 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.EncryptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class CardNumberPool {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final String INSERT_RESERVATION =
+            "INSERT IGNORE INTO card_number_reservations (number_hash, owner, reserved_at) VALUES (?, ?, ?)";
+    private static final String SELECT_OWNED = "SELECT number_hash FROM card_number_reservations "
+            + "WHERE owner = ? AND number_hash IN (%s)";
+    private static final String DELETE_CLAIMED = "DELETE r FROM card_number_reservations r "
+            + "JOIN cards c ON c.number_hash = r.number_hash";
+    private static final String DELETE_EXPIRED = "DELETE FROM card_number_reservations WHERE reserved_at < ?";
+    private static final String DELETE_OWNED = "DELETE FROM card_number_reservations WHERE owner = ?";
+
+    private final EncryptionService encryptionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<String> binPrefixes;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final int batchSize;
+    private final int ttl;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final Queue<Reservation> reservations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final ExecutorService executor;
+    private final Counter refilled;
+    private final Counter misses;
+    private final Timer refillTimer;
+
+    public CardNumberPool(
+            EncryptionService encryptionService,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cards.bin-prefixes}") List<String> binPrefixes,
+            @Value("${cards.number-pool.low-watermark}") int lowWatermark,
+            @Value("${cards.number-pool.high-watermark}") int highWatermark,
+            @Value("${cards.number-pool.batch-size}") int batchSize,
+            @Value("${cards.number-pool.ttl}") int ttl
+    ) {
+        this.encryptionService = encryptionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.binPrefixes = binPrefixes;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.batchSize = batchSize;
+        this.ttl = ttl;
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("card-number-pool-"));
+        this.refilled = meterRegistry.counter("cards.number_pool.refilled");
+        this.misses = meterRegistry.counter("cards.number_pool.misses");
+        this.refillTimer = meterRegistry.timer("cards.number_pool.refill");
+        Gauge.builder("cards.number_pool.size", size, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("cards.number_pool.low_watermark", () -> lowWatermark).register(meterRegistry);
+        Gauge.builder("cards.number_pool.high_watermark", () -> highWatermark).register(meterRegistry);
+    }
+
+    public Reservation claim() {
+        return claim(1).get(0);
+    }
+
+    public List<Reservation> claim(int count) {
+        long staleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(ttl) / 2;
+        List<Reservation> claimed = new ArrayList<>(count);
+        Reservation reservation;
+        while (claimed.size() < count && (reservation = reservations.poll()) != null) {
+            size.decrementAndGet();
+            if (reservation.reservedAt >= staleBefore) {
+                claimed.add(reservation);
+            }
+        }
+        triggerRefill();
+        if (claimed.size() == count) {
+            return claimed;
+        }
+
+        misses.increment(count - claimed.size());
+        int failedAttempts = 0;
+        while (claimed.size() < count) {
+            List<Reservation> reserved = reserve(Math.min(count - claimed.size(), batchSize));
+            if (reserved.isEmpty() && ++failedAttempts >= MAX_ATTEMPTS) {
+                throw new IllegalStateException("Failed to reserve card numbers");
+            }
+            claimed.addAll(reserved);
+        }
+        return claimed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cards.number-pool.check-interval}", timeUnit = TimeUnit.SECONDS)
+    public void triggerRefill() {
+        if (size.get() < lowWatermark && refilling.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::refill);
+            } catch (RuntimeException ex) {
+                refilling.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cards.number-pool.purge-interval}", timeUnit = TimeUnit.SECONDS)
+    public void purge() {
+        jdbcTemplate.update(DELETE_CLAIMED);
+        jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(Instant.now().minus(ttl, ChronoUnit.SECONDS)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jdbcTemplate.update(DELETE_OWNED, owner);
+    }
+
+    void refill() {
+        try {
+            refillTimer.record(() -> {
+                int missing;
+                while ((missing = highWatermark - size.get()) > 0 && !Thread.currentThread().isInterrupted()) {
+                    List<Reservation> reserved = reserve(Math.min(missing, batchSize));
+                    if (reserved.isEmpty()) {
+                        break;
+                    }
+                    reservations.addAll(reserved);
+                    size.addAndGet(reserved.size());
+                    refilled.increment(reserved.size());
+                }
+            });
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    private List<Reservation> reserve(int count) {
+        Set<String> candidates = new HashSet<>(count * 2);
+        while (candidates.size() < count) {
+            candidates.add(CardUtil.generate(nextBinPrefix()));
+        }
+
+        long now = System.currentTimeMillis();
+        Timestamp reservedAt = new Timestamp(now);
+        int keyVersion = encryptionService.getCurrentVersion();
+        List<Reservation> reserved = candidates.parallelStream()
+                .map(number -> new Reservation(
+                        number, encryptionService.encrypt(number), keyVersion, CardUtil.hash(number), now
+                ))
+                .toList();
+        List<Object[]> args = reserved.stream()
+                .map(r -> new Object[]{r.numberHash, owner, reservedAt})
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_RESERVATION, args);
+        if (Arrays.stream(counts).anyMatch(updated -> updated == Statement.SUCCESS_NO_INFO)) {
+            return owned(reserved);
+        }
+        List<Reservation> inserted = new ArrayList<>(reserved.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                inserted.add(reserved.get(i));
+            }
+        }
+        return inserted;
+    }
+
+    private List<Reservation> owned(List<Reservation> reserved) {
+        String placeholders = String.join(", ", Collections.nCopies(reserved.size(), "?"));
+        List<Object> args = new ArrayList<>(reserved.size() + 1);
+        args.add(owner);
+        reserved.forEach(r -> args.add(r.numberHash));
+        Set<ByteBuffer> owned = new HashSet<>(jdbcTemplate.query(
+                SELECT_OWNED.formatted(placeholders), (rs, rowNum) -> ByteBuffer.wrap(rs.getBytes(1)), args.toArray()
+        ));
+        return reserved.stream()
+                .filter(r -> owned.contains(ByteBuffer.wrap(r.numberHash)))
+                .toList();
+    }
+
+    private String nextBinPrefix() {
+        return binPrefixes.get(ThreadLocalRandom.current().nextInt(binPrefixes.size()));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Reservation {
+
+        private final String number;
+        private final String encryptedNumber;
+        private final int keyVersion;
+        private final byte[] numberHash;
+        private final long reservedAt;
+    }
+}
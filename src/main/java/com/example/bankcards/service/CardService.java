@@ -2,6 +2,8 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.card.BulkCardItem;
+import com.example.bankcards.dto.card.BulkCreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardResponse;
 import com.example.bankcards.entity.Card;
@@ -12,63 +14,146 @@ import com.example.bankcards.exception.entity.CardExpiredException;
 import com.example.bankcards.exception.entity.CardNotFoundException;
 import com.example.bankcards.exception.entity.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardView;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.CardUtil;
-import com.example.bankcards.util.EncryptionService;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CardService {
 
+    private static final int MAX_CREATE_ATTEMPTS = 3;
+    private static final String NUMBER_HASH_CONSTRAINT = "uk_cards_number_hash";
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
-    private final EncryptionService encryptionService;
+    private final CardNumberPool cardNumberPool;
+
+    @Value("${cards.bulk.chunk-size}")
+    private int bulkChunkSize;
 
+    @Transactional(readOnly = true)
     public Page<CardDto> getAll(Pageable pageable) {
-        return cardRepository.findAll(pageable).map(c -> c.toDto(encryptionService));
+        return cardRepository.findViews(pageable).map(CardView::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getAllSlice(Pageable pageable) {
+        return cardRepository.findViewSlice(pageable).map(CardView::toDto);
     }
 
+    @Transactional(readOnly = true)
     public CardDto getById(Long id) {
-        return cardRepository.findById(id)
-                .map(c -> c.toDto(encryptionService))
+        return cardRepository.findViewById(id)
+                .map(CardView::toDto)
+                .orElseThrow(CardNotFoundException::new);
+    }
+
+    @Transactional(readOnly = true)
+    public CardDto getByNumber(String number) {
+        return cardRepository.findViewByNumberHash(CardUtil.hash(number))
+                .map(CardView::toDto)
                 .orElseThrow(CardNotFoundException::new);
     }
 
+    @Transactional(readOnly = true)
     public Page<CardDto> getByUserId(Long userId, Pageable pageable) {
-        return cardRepository.findByUserId(userId, pageable).map(c -> c.toDto(encryptionService));
+        return cardRepository.findViewsByUserId(userId, pageable).map(CardView::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<CardDto> getSliceByUserId(Long userId, Pageable pageable) {
+        return cardRepository.findViewSliceByUserId(userId, pageable).map(CardView::toDto);
     }
 
-    @Transactional
     public CreateCardResponse create(CreateCardRequest createCardRequest) {
         User user = userRepository.findById(createCardRequest.getUser())
                 .orElseThrow(UserNotFoundException::new);
 
-        String number, numberHash;
-        do {
-            number = CardUtil.generate();
-            numberHash = CardUtil.hash(number);
-        } while (cardRepository.existsByNumberHash(numberHash));
+        for (int attempt = 1; ; attempt++) {
+            CardNumberPool.Reservation reservation = cardNumberPool.claim();
+            try {
+                Card createdCard = cardRepository.saveAndFlush(createCard(createCardRequest, user, reservation));
+                return new CreateCardResponse(reservation.getNumber(), createdCard.toDto());
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt >= MAX_CREATE_ATTEMPTS || !isNumberCollision(ex)) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    public Stream<CreateCardResponse> createBulk(BulkCreateCardRequest bulkCreateCardRequest) {
+        User user = userRepository.findById(bulkCreateCardRequest.getUser())
+                .orElseThrow(UserNotFoundException::new);
+
+        List<BulkCardItem> items = bulkCreateCardRequest.getCards();
+        return IntStream.iterate(0, from -> from < items.size(), from -> from + bulkChunkSize)
+                .mapToObj(from -> items.subList(from, Math.min(from + bulkChunkSize, items.size())))
+                .flatMap(chunk -> createChunk(chunk, user).stream());
+    }
+
+    private List<CreateCardResponse> createChunk(List<BulkCardItem> chunk, User user) {
+        for (int attempt = 1; ; attempt++) {
+            List<CardNumberPool.Reservation> reservations = cardNumberPool.claim(chunk.size());
+            List<Card> cards = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                BulkCardItem item = chunk.get(i);
+                cards.add(createCard(item.getHolder(), item.getExpiryDate(), user, reservations.get(i)));
+            }
+            try {
+                cardRepository.saveAllAndFlush(cards);
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt >= MAX_CREATE_ATTEMPTS || !isNumberCollision(ex)) {
+                    throw ex;
+                }
+                continue;
+            }
+
+            List<CreateCardResponse> created = new ArrayList<>(cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                created.add(new CreateCardResponse(reservations.get(i).getNumber(), cards.get(i).toDto()));
+            }
+            return created;
+        }
+    }
+
+    private Card createCard(CreateCardRequest createCardRequest, User user, CardNumberPool.Reservation reservation) {
+        return createCard(createCardRequest.getHolder(), createCardRequest.getExpiryDate(), user, reservation);
+    }
+
+    private Card createCard(String holder, LocalDate expiryDate, User user, CardNumberPool.Reservation reservation) {
+        String number = reservation.getNumber();
 
         Card card = new Card();
-        card.setNumber(encryptionService.encrypt(number));
-        card.setNumberHash(numberHash);
-        card.setHolder(createCardRequest.getHolder());
-        card.setExpiryDate(createCardRequest.getExpiryDate());
+        card.setNumber(reservation.getEncryptedNumber());
+        card.setKeyVersion(reservation.getKeyVersion());
+        card.setNumberHash(reservation.getNumberHash());
+        card.setLast4(number.substring(number.length() - 4));
+        card.setHolder(holder);
+        card.setExpiryDate(expiryDate);
         card.setStatus(Card.Status.ACTIVE);
         card.setBalance(BigDecimal.ZERO);
         card.setUser(user);
-
-        Card createdCard = cardRepository.save(card);
-        return new CreateCardResponse(number, createdCard.toDto(encryptionService));
+        return card;
     }
 
     @Transactional
@@ -77,10 +162,10 @@ public class CardService {
                 .orElseThrow(CardNotFoundException::new);
 
         if (card.isDeleted()) {
-            throw new CardDeletedException(card.toDto(encryptionService));
+            throw new CardDeletedException(card.toDto());
         }
         if (card.getExpiryDate().isBefore(LocalDate.now())) {
-            throw new CardExpiredException(card.toDto(encryptionService));
+            throw new CardExpiredException(card.toDto());
         }
 
         card.setStatus(Card.Status.ACTIVE);
@@ -93,10 +178,10 @@ public class CardService {
                 .orElseThrow(CardNotFoundException::new);
 
         if (card.isDeleted()) {
-            throw new CardDeletedException(card.toDto(encryptionService));
+            throw new CardDeletedException(card.toDto());
         }
         if (card.getExpiryDate().isBefore(LocalDate.now())) {
-            throw new CardExpiredException(card.toDto(encryptionService));
+            throw new CardExpiredException(card.toDto());
         }
         if (requester.getRole() != Role.ADMIN && !card.getUser().getId().equals(requester.getId())) {
             throw new AccessDeniedException("You are not an owner of this card");
@@ -111,9 +196,19 @@ public class CardService {
         Card card = cardRepository.findById(id)
                 .orElseThrow(CardNotFoundException::new);
         if (card.isDeleted()) {
-            throw new CardDeletedException(card.toDto(encryptionService));
+            throw new CardDeletedException(card.toDto());
         }
         card.setDeleted(true);
         cardRepository.save(card);
     }
+
+    private boolean isNumberCollision(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName() != null
+                        && violation.getConstraintName().toLowerCase(Locale.ROOT).endsWith(NUMBER_HASH_CONSTRAINT);
+            }
+        }
+        return false;
+    }
 }
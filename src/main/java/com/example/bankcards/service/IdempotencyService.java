@@ -0,0 +1,180 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.exception.ApiError;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final String INSERT_KEY = "INSERT INTO idempotency_keys "
+            + "(user_id, idempotency_key, request_hash, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_KEY =
+            "SELECT request_hash, response FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ?";
+    private static final String UPDATE_RESPONSE =
+            "UPDATE idempotency_keys SET response = ? WHERE user_id = ? AND idempotency_key = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    });
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LockRetryTemplate lockRetryTemplate;
+    private final ObjectMapper objectMapper;
+    private final int ttl;
+    private final Cache<String, StoredResponse> responses;
+    private final Counter replays;
+
+    public IdempotencyService(
+            JdbcTemplate jdbcTemplate,
+            LockRetryTemplate lockRetryTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${idempotency.ttl}") int ttl,
+            @Value("${idempotency.cache.maximum-size}") long maximumSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockRetryTemplate = lockRetryTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+        this.replays = meterRegistry.counter("idempotency.replays");
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency_keys");
+    }
+
+    public TransactionDto execute(
+            Long userId, String idempotencyKey, String operation, Object request, Supplier<TransactionDto> action
+    ) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException(ApiError.IDEMPOTENCY_KEY_INVALID);
+        }
+
+        String cacheKey = userId + ":" + idempotencyKey;
+        byte[] requestHash = hash(operation, request);
+        StoredResponse cached = responses.getIfPresent(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        TransactionDto response = lockRetryTemplate.execute(operation, () -> {
+            try {
+                jdbcTemplate.update(
+                        INSERT_KEY, userId, idempotencyKey, requestHash, Timestamp.valueOf(LocalDateTime.now())
+                );
+            } catch (DuplicateKeyException ex) {
+                return null;
+            }
+            TransactionDto result = action.get();
+            jdbcTemplate.update(UPDATE_RESPONSE, write(result), userId, idempotencyKey);
+            return result;
+        });
+        if (response == null) {
+            StoredResponse stored = load(userId, idempotencyKey);
+            if (stored != null && stored.response != null) {
+                responses.put(cacheKey, stored);
+            }
+            return replay(stored, requestHash);
+        }
+        responses.put(cacheKey, new StoredResponse(requestHash, response));
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval}", timeUnit = TimeUnit.SECONDS)
+    public void purge() {
+        jdbcTemplate.update(DELETE_EXPIRED, Timestamp.valueOf(LocalDateTime.now().minusSeconds(ttl)));
+    }
+
+    private TransactionDto replay(StoredResponse stored, byte[] requestHash) {
+        if (stored == null || stored.response == null) {
+            throw new IdempotencyKeyException(ApiError.IDEMPOTENCY_KEY_IN_USE);
+        }
+        if (!Arrays.equals(stored.requestHash, requestHash)) {
+            throw new IdempotencyKeyException(ApiError.IDEMPOTENCY_KEY_MISMATCH);
+        }
+        replays.increment();
+        return stored.response;
+    }
+
+    private StoredResponse load(Long userId, String idempotencyKey) {
+        List<StoredResponse> stored = jdbcTemplate.query(
+                SELECT_KEY,
+                (rs, rowNum) -> new StoredResponse(rs.getBytes(1), read(rs.getString(2))),
+                userId, idempotencyKey
+        );
+        return stored.isEmpty() ? null : stored.get(0);
+    }
+
+    private byte[] hash(String operation, Object request) {
+        MessageDigest digest = DIGEST.get();
+        digest.update(operation.getBytes(StandardCharsets.UTF_8));
+        try {
+            return digest.digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException ex) {
+            digest.reset();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String write(TransactionDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private TransactionDto read(String response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response, TransactionDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class StoredResponse {
+
+        private final byte[] requestHash;
+        private final TransactionDto response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class LockRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final Timer lockWait;
+    private final Counter exhausted;
+
+    public LockRetryTemplate(
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${transfers.retry.max-attempts}") int maxAttempts,
+            @Value("${transfers.retry.base-delay-millis}") long baseDelay
+    ) {
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.lockWait = meterRegistry.timer("transfers.lock.wait");
+        this.exhausted = meterRegistry.counter("transfers.retries.exhausted");
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (PessimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw new ServiceBusyException();
+                }
+                meterRegistry.counter("transfers.retries", "operation", operation).increment();
+                sleep(attempt);
+            }
+        }
+    }
+
+    public <T> T recordLockWait(Supplier<T> lock) {
+        return lockWait.record(lock);
+    }
+
+    private void sleep(int attempt) {
+        long delay = ThreadLocalRandom.current().nextLong((baseDelay << (attempt - 1)) + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException();
+        }
+    }
+}
@@ -1,25 +1,53 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.transaction.BatchTransferRequest;
+import com.example.bankcards.dto.transaction.BatchTransferResult;
+import com.example.bankcards.dto.transaction.CardBalanceDto;
+import com.example.bankcards.dto.transaction.DailyTotalDto;
 import com.example.bankcards.dto.transaction.DepositRequest;
 import com.example.bankcards.dto.transaction.TransactionRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.exception.ApiError;
+import com.example.bankcards.exception.BatchModeNotSupportedException;
+import com.example.bankcards.exception.EntityException;
+import com.example.bankcards.exception.InvalidDateRangeException;
 import com.example.bankcards.exception.entity.*;
+import com.example.bankcards.job.TransactionArchiveJob;
+import com.example.bankcards.job.TransactionOwnerBackfillJob;
+import com.example.bankcards.ledger.LedgerEngine;
+import com.example.bankcards.repository.CardOwnerView;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.DailyTotals;
 import com.example.bankcards.repository.TransactionRepository;
-import com.example.bankcards.util.EncryptionService;
+import com.example.bankcards.util.CursorUtil;
+import com.example.bankcards.util.PageableUtil;
+import com.example.bankcards.util.StreamUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,76 +55,382 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final CardRepository cardRepository;
-    private final EncryptionService encryptionService;
+    private final LockRetryTemplate lockRetryTemplate;
+    private final LedgerEngine ledgerEngine;
+    private final TransactionOwnerBackfillJob ownerBackfillJob;
+    private final TransactionArchiveJob archiveJob;
 
-    @Transactional
+    @Value("${transactions.analytics.max-days}")
+    private int maxAnalyticsDays;
+
+    @Transactional(readOnly = true)
     public Page<TransactionDto> getByCardId(Long cardId, UserDto requester, Pageable pageable) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(CardNotFoundException::new);
-        if (requester.getRole() != Role.ADMIN && !card.getUser().getId().equals(requester.getId())) {
-            throw new AccessDeniedException("You are not an owner of this card");
-        }
-        return transactionRepository.findByFromIdOrToId(cardId, cardId, pageable).map(Transaction::toDto);
+        CardOwnerView card = getCardOwner(cardId, requester);
+        Slice<TransactionDto> slice = transactionRepository.findSliceByCardIds(
+                List.of(cardId), archiveJob.getArchivedBefore(), pageable
+        );
+        return new PageImpl<>(slice.getContent(), pageable, card.getTransactionCount());
     }
 
+    @Transactional(readOnly = true)
+    public Slice<TransactionDto> getSliceByCardId(Long cardId, UserDto requester, Pageable pageable) {
+        getCardOwner(cardId, requester);
+        return transactionRepository.findSliceByCardIds(List.of(cardId), archiveJob.getArchivedBefore(), pageable);
+    }
+
+    @Transactional(readOnly = true)
     public Page<TransactionDto> getByUserId(Long userId, UserDto requester, Pageable pageable) {
+        Slice<TransactionDto> slice = getSliceByUserId(userId, requester, pageable);
+        return new PageImpl<>(
+                slice.getContent(), pageable, transactionRepository.getTransactionCountByOwnerId(userId)
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TransactionDto> getSliceByUserId(Long userId, UserDto requester, Pageable pageable) {
+        if (requester.getRole() != Role.ADMIN && !userId.equals(requester.getId())) {
+            throw new AccessDeniedException("You have no access to this user");
+        }
+        LocalDateTime archivedBefore = archiveJob.getArchivedBefore();
+        if (ownerBackfillJob.isCompleted()) {
+            return transactionRepository.findSliceByOwnerId(userId, archivedBefore, pageable);
+        }
+        if (archivedBefore == null) {
+            return transactionRepository.findSliceByUserId(userId, pageable);
+        }
+        return transactionRepository.findSliceByCardIds(
+                cardRepository.findIdsByUserId(userId), archivedBefore, pageable
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDto> seekByCardId(Long cardId, UserDto requester, String cursor, int limit) {
+        getCardOwner(cardId, requester);
+        List<Long> cardIds = List.of(cardId);
+        LocalDateTime archivedBefore = archiveJob.getArchivedBefore();
+        return seek(cursor, limit, archivedBefore,
+                (position, size) -> transactionRepository.findByCardIdsBefore(
+                        cardIds, position.getDate(), position.getId(), size, archivedBefore
+                ),
+                (position, size) -> transactionRepository.findArchivedByCardIdsBefore(
+                        cardIds, position.getDate(), position.getId(), size
+                ));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDto> seekByUserId(Long userId, UserDto requester, String cursor, int limit) {
+        if (requester.getRole() != Role.ADMIN && !userId.equals(requester.getId())) {
+            throw new AccessDeniedException("You have no access to this user");
+        }
+        LocalDateTime archivedBefore = archiveJob.getArchivedBefore();
+        BiFunction<CursorUtil.Position, Integer, List<TransactionDto>> archived = (position, size) ->
+                transactionRepository.findArchivedByOwnerIdBefore(userId, position.getDate(), position.getId(), size);
+        if (ownerBackfillJob.isCompleted()) {
+            return seek(cursor, limit, archivedBefore,
+                    (position, size) -> transactionRepository.findByOwnerIdBefore(
+                            userId, position.getDate(), position.getId(), size, archivedBefore
+                    ),
+                    archived);
+        }
+        List<Long> cardIds = cardRepository.findIdsByUserId(userId);
+        return seek(cursor, limit, archivedBefore,
+                (position, size) -> transactionRepository.findByCardIdsBefore(
+                        cardIds, position.getDate(), position.getId(), size, archivedBefore
+                ),
+                archived);
+    }
+
+    @Transactional(readOnly = true)
+    public CardBalanceDto getBalanceAt(Long cardId, UserDto requester, LocalDateTime at) {
+        getCardOwner(cardId, requester);
+        return new CardBalanceDto(
+                cardId, at, transactionRepository.findBalanceBefore(cardId, at, archiveJob.getArchivedBefore())
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyTotalDto> getDailyTotalsByCardId(Long cardId, UserDto requester, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        getCardOwner(cardId, requester);
+        return transactionRepository.findDailyTotalsByCardId(cardId, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyTotalDto> getDailyTotalsByUserId(Long userId, UserDto requester, LocalDate from, LocalDate to) {
+        validateRange(from, to);
         if (requester.getRole() != Role.ADMIN && !userId.equals(requester.getId())) {
             throw new AccessDeniedException("You have no access to this user");
         }
-        return transactionRepository.findByUserId(userId, pageable).map(Transaction::toDto);
+        return transactionRepository.findDailyTotalsByOwnerId(userId, from, to);
+    }
+
+    public Stream<TransactionDto> exportByUserId(Long userId, UserDto requester) {
+        if (requester.getRole() != Role.ADMIN && !userId.equals(requester.getId())) {
+            throw new AccessDeniedException("You have no access to this user");
+        }
+        LocalDateTime archivedBefore = archiveJob.getArchivedBefore();
+        Supplier<Stream<TransactionDto>> recent;
+        if (ownerBackfillJob.isCompleted()) {
+            recent = () -> transactionRepository.streamByOwnerId(userId, archivedBefore);
+        } else {
+            List<Long> cardIds = cardRepository.findIdsByUserId(userId);
+            recent = () -> transactionRepository.streamByCardIds(cardIds, archivedBefore);
+        }
+        if (archivedBefore == null) {
+            return recent.get();
+        }
+        return StreamUtil.concat(() -> transactionRepository.streamArchivedByOwnerId(userId, archivedBefore), recent);
     }
 
-    @Transactional
     public TransactionDto deposit(DepositRequest depositRequest) {
-        Card card = cardRepository.findById(depositRequest.getCard())
-                .orElseThrow(CardNotFoundException::new);
-        validateCard(card.toDto(encryptionService));
+        if (ledgerEngine.isEnabled()) {
+            Card card = cardRepository.findById(depositRequest.getCard())
+                    .orElseThrow(CardNotFoundException::new);
+            validateCard(card.toDto());
+            return ledgerEngine.deposit(card, depositRequest.getAmount());
+        }
+        return lockRetryTemplate.execute("deposit", () -> doDeposit(depositRequest));
+    }
+
+    public TransactionDto transfer(TransactionRequest transactionRequest, UserDto requester) {
+        if (ledgerEngine.isEnabled()) {
+            Map<Long, Card> cards = cardRepository
+                    .findAllById(Set.of(transactionRequest.getFrom(), transactionRequest.getTo())).stream()
+                    .collect(Collectors.toMap(Card::getId, Function.identity()));
+            Card from = cards.get(transactionRequest.getFrom());
+            Card to = cards.get(transactionRequest.getTo());
+            validateTransfer(from, to, requester);
+            return ledgerEngine.transfer(from, to, transactionRequest.getAmount(), transactionRequest.getComment());
+        }
+        return lockRetryTemplate.execute("transfer", () -> doTransfer(transactionRequest, requester));
+    }
+
+    public List<BatchTransferResult> transferBatch(BatchTransferRequest batchRequest, UserDto requester) {
+        boolean atomic = batchRequest.getMode() == BatchTransferRequest.Mode.ALL_OR_NOTHING;
+        if (ledgerEngine.isEnabled()) {
+            if (atomic) {
+                throw new BatchModeNotSupportedException();
+            }
+            return transferBatchWithLedger(batchRequest, requester);
+        }
+        return lockRetryTemplate.execute("batch_transfer", () -> doTransferBatch(batchRequest, requester, atomic));
+    }
+
+    private TransactionDto doDeposit(DepositRequest depositRequest) {
+        Card card = lockCards(depositRequest.getCard()).get(depositRequest.getCard());
+        if (card == null) {
+            throw new CardNotFoundException();
+        }
+        validateCard(card.toDto());
 
         card.setBalance(card.getBalance().add(depositRequest.getAmount()));
+        Transaction transaction = createTransaction(card, card, depositRequest.getAmount(), "");
+        countTransactions(List.of(transaction));
         cardRepository.save(card);
 
-        Transaction transaction = new Transaction();
-        transaction.setFrom(card);
-        transaction.setTo(card);
-        transaction.setAmount(depositRequest.getAmount());
-        transaction.setComment("");
-        transaction.setDate(LocalDateTime.now());
-
         Transaction createdTransaction = transactionRepository.save(transaction);
         return createdTransaction.toDto();
     }
 
-    @Transactional
-    public TransactionDto transfer(TransactionRequest transactionRequest, UserDto requester) {
-        Card from = cardRepository.findById(transactionRequest.getFrom())
-                .orElseThrow(CardNotFoundException::new);
-        Card to = cardRepository.findById(transactionRequest.getTo())
-                .orElseThrow(CardNotFoundException::new);
-
-        if (!from.getUser().getId().equals(requester.getId())
-                || !to.getUser().getId().equals(requester.getId())) {
-            throw new AccessDeniedException("You are not an owner of these cards");
-        }
-        validateCard(from.toDto(encryptionService));
-        validateCard(to.toDto(encryptionService));
+    private TransactionDto doTransfer(TransactionRequest transactionRequest, UserDto requester) {
+        Map<Long, Card> cards = lockCards(transactionRequest.getFrom(), transactionRequest.getTo());
+        Card from = cards.get(transactionRequest.getFrom());
+        Card to = cards.get(transactionRequest.getTo());
+        validateTransfer(from, to, requester);
         if (from.getBalance().compareTo(transactionRequest.getAmount()) < 0) {
             throw new InsufficientFundsException();
         }
 
         from.setBalance(from.getBalance().subtract(transactionRequest.getAmount()));
-        cardRepository.save(from);
         to.setBalance(to.getBalance().add(transactionRequest.getAmount()));
+        Transaction transaction = createTransaction(
+                from, to, transactionRequest.getAmount(), transactionRequest.getComment()
+        );
+        countTransactions(List.of(transaction));
+        cardRepository.save(from);
         cardRepository.save(to);
 
+        Transaction createdTransaction = transactionRepository.save(transaction);
+        return createdTransaction.toDto();
+    }
+
+    private List<BatchTransferResult> doTransferBatch(
+            BatchTransferRequest batchRequest, UserDto requester, boolean atomic
+    ) {
+        List<TransactionRequest> transfers = batchRequest.getTransfers();
+        Map<Long, Card> cards = lockCards(cardIds(transfers));
+        BatchTransferResult[] results = new BatchTransferResult[transfers.size()];
+        Map<Integer, Transaction> transactions = new LinkedHashMap<>();
+        Set<Card> changedCards = new LinkedHashSet<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransactionRequest transfer = transfers.get(i);
+            Card from = cards.get(transfer.getFrom());
+            Card to = cards.get(transfer.getTo());
+            try {
+                validateTransfer(from, to, requester);
+                if (from.getBalance().compareTo(transfer.getAmount()) < 0) {
+                    throw new InsufficientFundsException();
+                }
+            } catch (EntityException | InsufficientFundsException | AccessDeniedException ex) {
+                if (atomic) {
+                    throw ex;
+                }
+                results[i] = BatchTransferResult.failure(i, errorMessage(ex));
+                continue;
+            }
+
+            from.setBalance(from.getBalance().subtract(transfer.getAmount()));
+            to.setBalance(to.getBalance().add(transfer.getAmount()));
+            changedCards.add(from);
+            changedCards.add(to);
+            transactions.put(i, createTransaction(from, to, transfer.getAmount(), transfer.getComment()));
+        }
+
+        countTransactions(transactions.values());
+        cardRepository.saveAll(changedCards);
+        transactionRepository.saveAll(transactions.values());
+        transactions.forEach((i, transaction) -> results[i] = BatchTransferResult.success(i, transaction.toDto()));
+        return Arrays.asList(results);
+    }
+
+    private List<BatchTransferResult> transferBatchWithLedger(BatchTransferRequest batchRequest, UserDto requester) {
+        List<TransactionRequest> transfers = batchRequest.getTransfers();
+        Map<Long, Card> cards = cardRepository.findAllById(cardIds(transfers)).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        List<BatchTransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransactionRequest transfer = transfers.get(i);
+            Card from = cards.get(transfer.getFrom());
+            Card to = cards.get(transfer.getTo());
+            try {
+                validateTransfer(from, to, requester);
+                results.add(BatchTransferResult.success(
+                        i, ledgerEngine.transfer(from, to, transfer.getAmount(), transfer.getComment())
+                ));
+            } catch (EntityException | InsufficientFundsException | AccessDeniedException ex) {
+                results.add(BatchTransferResult.failure(i, errorMessage(ex)));
+            }
+        }
+        return results;
+    }
+
+    private CursorPage<TransactionDto> seek(
+            String cursor, int limit, LocalDateTime archivedBefore,
+            BiFunction<CursorUtil.Position, Integer, List<TransactionDto>> query,
+            BiFunction<CursorUtil.Position, Integer, List<TransactionDto>> archiveQuery
+    ) {
+        CursorUtil.Position position = CursorUtil.decode(cursor);
+        int pageSize = PageableUtil.capLimit(limit);
+        List<TransactionDto> transactions = new ArrayList<>(pageSize + 1);
+        if (archivedBefore == null || !position.getDate().isBefore(archivedBefore)) {
+            transactions.addAll(query.apply(position, pageSize + 1));
+        }
+        if (archivedBefore != null && transactions.size() <= pageSize) {
+            if (!transactions.isEmpty()) {
+                TransactionDto oldest = transactions.get(transactions.size() - 1);
+                position = new CursorUtil.Position(oldest.getDate(), oldest.getId());
+            }
+            transactions.addAll(archiveQuery.apply(position, pageSize + 1 - transactions.size()));
+        }
+        if (transactions.size() <= pageSize) {
+            return new CursorPage<>(transactions, null);
+        }
+        List<TransactionDto> content = transactions.subList(0, pageSize);
+        TransactionDto last = content.get(pageSize - 1);
+        return new CursorPage<>(content, CursorUtil.encode(last.getDate(), last.getId()));
+    }
+
+    private Set<Long> cardIds(List<TransactionRequest> transfers) {
+        Set<Long> ids = new TreeSet<>();
+        for (TransactionRequest transfer : transfers) {
+            ids.add(transfer.getFrom());
+            ids.add(transfer.getTo());
+        }
+        return ids;
+    }
+
+    private String errorMessage(RuntimeException ex) {
+        if (ex instanceof EntityNotFoundException notFoundException) {
+            return String.format(ApiError.ENTITY_NOT_FOUND.getMessage(), notFoundException.getEntity());
+        }
+        return ex.getMessage();
+    }
+
+    private Transaction createTransaction(Card from, Card to, BigDecimal amount, String comment) {
         Transaction transaction = new Transaction();
         transaction.setFrom(from);
         transaction.setTo(to);
-        transaction.setAmount(transactionRequest.getAmount());
-        transaction.setComment(transactionRequest.getComment());
+        transaction.setFromUserId(from.getUser().getId());
+        transaction.setToUserId(to.getUser().getId());
+        transaction.setAmount(amount);
+        transaction.setFromBalanceAfter(from.getBalance());
+        transaction.setToBalanceAfter(to.getBalance());
+        transaction.setComment(comment);
         transaction.setDate(LocalDateTime.now());
+        return transaction;
+    }
 
-        Transaction createdTransaction = transactionRepository.save(transaction);
-        return createdTransaction.toDto();
+    private void countTransactions(Collection<Transaction> transactions) {
+        Map<Long, Long> countsByOwnerId = new HashMap<>();
+        DailyTotals dailyTotals = new DailyTotals();
+        for (Transaction transaction : transactions) {
+            Card from = transaction.getFrom();
+            Card to = transaction.getTo();
+            dailyTotals.add(
+                    from.getId(), to.getId(), transaction.getFromUserId(), transaction.getToUserId(),
+                    transaction.getAmount(), transaction.getDate()
+            );
+            from.setTransactionCount(from.getTransactionCount() + 1);
+            if (to != from) {
+                to.setTransactionCount(to.getTransactionCount() + 1);
+            }
+            countsByOwnerId.merge(transaction.getFromUserId(), 1L, Long::sum);
+            if (!transaction.getToUserId().equals(transaction.getFromUserId())) {
+                countsByOwnerId.merge(transaction.getToUserId(), 1L, Long::sum);
+            }
+        }
+        transactionRepository.incrementTransactionCounts(countsByOwnerId);
+        transactionRepository.incrementDailyTotals(dailyTotals);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidDateRangeException("must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxAnalyticsDays) {
+            throw new InvalidDateRangeException("range must not exceed " + maxAnalyticsDays + " days");
+        }
+    }
+
+    private CardOwnerView getCardOwner(Long cardId, UserDto requester) {
+        CardOwnerView card = cardRepository.findOwnerViewById(cardId)
+                .orElseThrow(CardNotFoundException::new);
+        if (requester.getRole() != Role.ADMIN && !card.getUserId().equals(requester.getId())) {
+            throw new AccessDeniedException("You are not an owner of this card");
+        }
+        return card;
+    }
+
+    private Map<Long, Card> lockCards(Long... ids) {
+        return lockCards(Arrays.asList(ids));
+    }
+
+    private Map<Long, Card> lockCards(Collection<Long> ids) {
+        Set<Long> sortedIds = new TreeSet<>(ids);
+        List<Card> cards = lockRetryTemplate.recordLockWait(() -> cardRepository.findAllForUpdate(sortedIds));
+        return cards.stream().collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private void validateTransfer(Card from, Card to, UserDto requester) {
+        if (from == null || to == null) {
+            throw new CardNotFoundException();
+        }
+        if (!from.getUser().getId().equals(requester.getId())
+                || !to.getUser().getId().equals(requester.getId())) {
+            throw new AccessDeniedException("You are not an owner of these cards");
+        }
+        validateCard(from.toDto());
+        validateCard(to.toDto());
     }
 
     private void validateCard(CardDto card) {
@@ -6,10 +6,12 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.entity.UserAlreadyExistsException;
 import com.example.bankcards.exception.entity.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.PasswordHasher;
+import com.example.bankcards.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,15 +20,22 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final PrincipalCache principalCache;
 
+    @Transactional(readOnly = true)
     public Page<UserDto> getAll(Pageable pageable) {
-        return userRepository.findAll(pageable).map(User::toDto);
+        return userRepository.findDtos(pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getAllSlice(Pageable pageable) {
+        return userRepository.findDtoSlice(pageable);
+    }
+
+    @Transactional(readOnly = true)
     public UserDto getById(Long id) {
-        return userRepository.findById(id)
-                .map(User::toDto)
+        return userRepository.findDtoById(id)
                 .orElseThrow(UserNotFoundException::new);
     }
 
@@ -37,7 +46,7 @@ public class UserService {
         }
         User user = new User();
         user.setUsername(createUserRequest.getUsername());
-        user.setPassword(passwordEncoder.encode(createUserRequest.getPassword()));
+        user.setPassword(passwordHasher.encode(createUserRequest.getPassword()));
         user.setRole(createUserRequest.getRole());
         user.setEnabled(true);
         User createdUser = userRepository.save(user);
@@ -50,5 +59,25 @@ public class UserService {
                 .orElseThrow(UserNotFoundException::new);
         user.setEnabled(enabled);
         userRepository.save(user);
+        principalCache.evict(user);
+    }
+
+    @Transactional
+    public void setPassword(Long id, String password) {
+        User user = userRepository.findById(id)
+                .orElseThrow(UserNotFoundException::new);
+        user.setPassword(passwordHasher.encode(password));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        principalCache.evict(user);
+    }
+
+    @Transactional
+    public void revokeTokens(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(UserNotFoundException::new);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        principalCache.evict(user);
     }
 }
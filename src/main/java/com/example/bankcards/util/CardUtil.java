@@ -2,41 +2,87 @@ package com.example.bankcards.util;
 
 import lombok.experimental.UtilityClass;
 
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.util.Base64;
+import java.util.random.RandomGenerator;
 
 @UtilityClass
 public class CardUtil {
 
-    public String generate() {
-        SecureRandom random = new SecureRandom();
-        StringBuilder cardNumber;
-        do {
-            cardNumber = new StringBuilder();
-            for (int i = 0; i < 16; i++) {
-                cardNumber.append(random.nextInt(10));
+    private final SecureRandom RANDOM = new SecureRandom();
+    private final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    });
+    private final int LENGTH = 16;
+    private final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L
+    };
+
+    public String generate(String binPrefix) {
+        return generate(binPrefix, RANDOM);
+    }
+
+    public String generate(String binPrefix, RandomGenerator random) {
+        int prefixLength = binPrefix.length();
+        if (prefixLength >= LENGTH) {
+            throw new IllegalArgumentException("BIN prefix is too long");
+        }
+
+        char[] digits = new char[LENGTH];
+        for (int i = 0; i < prefixLength; i++) {
+            char c = binPrefix.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("BIN prefix must contain only digits");
+            }
+            digits[i] = c;
+        }
+
+        long body = random.nextLong(POWERS_OF_TEN[LENGTH - 1 - prefixLength]);
+        for (int i = LENGTH - 2; i >= prefixLength; i--) {
+            digits[i] = (char) ('0' + body % 10);
+            body /= 10;
+        }
+
+        int sum = 0;
+        boolean alternate = true;
+        for (int i = LENGTH - 2; i >= 0; i--) {
+            int n = digits[i] - '0';
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n -= 9;
+                }
             }
-        } while (!isValidNumber(cardNumber.toString()));
-        return cardNumber.toString();
+            sum += n;
+            alternate = !alternate;
+        }
+        digits[LENGTH - 1] = (char) ('0' + (10 - sum % 10) % 10);
+        return new String(digits);
     }
 
     public String mask(String cardNumber) {
+        if (cardNumber == null) {
+            return "**** **** **** ****";
+        }
         return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
     }
 
-    public String hash(String cardNumber) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(cardNumber.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception ex) {
-            throw new RuntimeException("Hash generation failed", ex);
+    public byte[] hash(String cardNumber) {
+        MessageDigest digest = DIGEST.get();
+        for (int i = 0; i < cardNumber.length(); i++) {
+            digest.update((byte) cardNumber.charAt(i));
         }
+        return digest.digest();
     }
 
-    private boolean isValidNumber(String cardNumber) {
+    public boolean isValidNumber(String cardNumber) {
         int sum = 0;
         boolean alternate = false;
         for (int i = cardNumber.length() - 1; i >= 0; i--) {
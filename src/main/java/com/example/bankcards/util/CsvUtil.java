@@ -0,0 +1,31 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.StringJoiner;
+
+@UtilityClass
+public class CsvUtil {
+
+    public String row(Object... values) {
+        StringJoiner row = new StringJoiner(",", "", "\n");
+        for (Object value : values) {
+            row.add(escape(value == null ? "" : value.toString()));
+        }
+        return row.toString();
+    }
+
+    public String escape(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
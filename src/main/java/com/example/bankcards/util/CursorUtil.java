@@ -0,0 +1,63 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+@UtilityClass
+public class CursorUtil {
+
+    public final Position FIRST = new Position(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final int SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode(LocalDateTime date, long id) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                .putLong(date.toEpochSecond(ZoneOffset.UTC))
+                .putInt(date.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public Position decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException();
+        }
+        if (bytes.length != SIZE) {
+            throw new InvalidCursorException();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        long id = buffer.getLong();
+        if (nano < 0 || nano > 999_999_999) {
+            throw new InvalidCursorException();
+        }
+        try {
+            return new Position(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC), id);
+        } catch (DateTimeException ex) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Position {
+
+        private final LocalDateTime date;
+        private final long id;
+    }
+}
@@ -1,15 +1,20 @@
 package com.example.bankcards.util;
 
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.List;
 
 @Service
 public class EncryptionService {
@@ -17,56 +22,74 @@ public class EncryptionService {
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final int GCM_SIZE = 12;
+    private static final int TAG_SIZE = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    });
 
     @Value("${encryption.secret}")
     private String secret;
+    @Value("${encryption.rotated-secrets:}")
+    private List<String> rotatedSecrets;
+
+    private SecretKey[] keys;
+    @Getter
+    private int currentVersion;
+
+    @PostConstruct
+    public void init() {
+        keys = new SecretKey[rotatedSecrets.size() + 1];
+        keys[0] = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        for (int i = 0; i < rotatedSecrets.size(); i++) {
+            keys[i + 1] = new SecretKeySpec(rotatedSecrets.get(i).getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        }
+        currentVersion = keys.length - 1;
+    }
 
     public String encrypt(String data) {
+        return Base64.getEncoder().encodeToString(encryptToBytes(data));
+    }
+
+    public byte[] encryptToBytes(String data) {
         try {
-            SecretKey key = getKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = CIPHER.get();
+            byte[] plain = data.getBytes(StandardCharsets.UTF_8);
 
             byte[] nonce = new byte[GCM_SIZE];
-            SecureRandom random = new SecureRandom();
-            random.nextBytes(nonce);
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(128, nonce);
+            RANDOM.nextBytes(nonce);
+            cipher.init(Cipher.ENCRYPT_MODE, keys[currentVersion], new GCMParameterSpec(TAG_SIZE, nonce));
 
-            cipher.init(Cipher.ENCRYPT_MODE, key, gcmSpec);
-            byte[] encryptedData = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
-
-            byte[] combined = new byte[GCM_SIZE + encryptedData.length];
+            byte[] combined = new byte[GCM_SIZE + cipher.getOutputSize(plain.length)];
             System.arraycopy(nonce, 0, combined, 0, GCM_SIZE);
-            System.arraycopy(encryptedData, 0, combined, GCM_SIZE, encryptedData.length);
-
-            return Base64.getEncoder().encodeToString(combined);
+            cipher.doFinal(plain, 0, plain.length, combined, GCM_SIZE);
+            return combined;
         } catch (Exception ex) {
             throw new RuntimeException("Encryption failed", ex);
         }
     }
 
-    public String decrypt(String encryptedData) {
-        try {
-            SecretKey key = getKey();
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-
-            byte[] combined = Base64.getDecoder().decode(encryptedData);
-            byte[] nonce = new byte[GCM_SIZE];
-            byte[] encryptedBytes = new byte[combined.length - GCM_SIZE];
-
-            System.arraycopy(combined, 0, nonce, 0, GCM_SIZE);
-            System.arraycopy(combined, GCM_SIZE, encryptedBytes, 0, encryptedBytes.length);
+    public String decrypt(String encryptedData, int version) {
+        return decrypt(Base64.getDecoder().decode(encryptedData), version);
+    }
 
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(128, nonce);
-            cipher.init(Cipher.DECRYPT_MODE, key, gcmSpec);
+    public String decrypt(byte[] encryptedData, int version) {
+        if (version < 0 || version >= keys.length) {
+            throw new IllegalArgumentException("Unknown key version " + version);
+        }
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, keys[version], new GCMParameterSpec(TAG_SIZE, encryptedData, 0, GCM_SIZE));
 
-            byte[] decryptedData = cipher.doFinal(encryptedBytes);
+            byte[] decryptedData = cipher.doFinal(encryptedData, GCM_SIZE, encryptedData.length - GCM_SIZE);
             return new String(decryptedData, StandardCharsets.UTF_8);
         } catch (Exception ex) {
             throw new RuntimeException("Decryption failed", ex);
         }
     }
-
-    private SecretKey getKey() {
-        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-    }
 }
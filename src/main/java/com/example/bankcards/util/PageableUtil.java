@@ -8,6 +8,8 @@ import org.springframework.data.domain.Sort;
 @UtilityClass
 public class PageableUtil {
 
+    public final int MAX_LIMIT = 100;
+
     public Pageable makePageable(int page, int limit, String direction, String... properties) {
         Sort.Direction sortDirection;
         if (direction.equalsIgnoreCase("asc")) {
@@ -15,6 +17,10 @@ public class PageableUtil {
         } else {
             sortDirection = Sort.Direction.DESC;
         }
-        return PageRequest.of(page, limit, Sort.by(sortDirection, properties));
+        return PageRequest.of(page, capLimit(limit), Sort.by(sortDirection, properties));
+    }
+
+    public int capLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
     }
 }
@@ -0,0 +1,135 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@UtilityClass
+public class StreamUtil {
+
+    public <T> Stream<T> concat(Supplier<Stream<T>> first, Supplier<Stream<T>> second) {
+        SequentialIterator<T> iterator = new SequentialIterator<>(List.of(first, second).iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    public <T> Stream<T> merge(
+            Supplier<Stream<T>> first, Supplier<Stream<T>> second, Comparator<? super T> order
+    ) {
+        MergingIterator<T> iterator = new MergingIterator<>(first, second, order);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    private class SequentialIterator<T> implements Iterator<T> {
+
+        private final Iterator<Supplier<Stream<T>>> suppliers;
+        private Stream<T> stream;
+        private Iterator<T> current;
+
+        SequentialIterator(Iterator<Supplier<Stream<T>>> suppliers) {
+            this.suppliers = suppliers;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                close();
+                if (!suppliers.hasNext()) {
+                    return false;
+                }
+                stream = suppliers.next().get();
+                current = stream.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        void close() {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+                current = null;
+            }
+        }
+    }
+
+    private class MergingIterator<T> implements Iterator<T> {
+
+        private final Supplier<Stream<T>> firstSupplier;
+        private final Supplier<Stream<T>> secondSupplier;
+        private final Comparator<? super T> order;
+        private Stream<T> first;
+        private Stream<T> second;
+        private Iterator<T> firstIterator;
+        private Iterator<T> secondIterator;
+        private T firstNext;
+        private T secondNext;
+
+        MergingIterator(Supplier<Stream<T>> first, Supplier<Stream<T>> second, Comparator<? super T> order) {
+            this.firstSupplier = first;
+            this.secondSupplier = second;
+            this.order = order;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (first == null) {
+                first = firstSupplier.get();
+                firstIterator = first.iterator();
+                firstNext = advance(firstIterator);
+                second = secondSupplier.get();
+                secondIterator = second.iterator();
+                secondNext = advance(secondIterator);
+            }
+            return firstNext != null || secondNext != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T next;
+            if (secondNext == null || firstNext != null && order.compare(firstNext, secondNext) <= 0) {
+                next = firstNext;
+                firstNext = advance(firstIterator);
+            } else {
+                next = secondNext;
+                secondNext = advance(secondIterator);
+            }
+            return next;
+        }
+
+        void close() {
+            try {
+                if (first != null) {
+                    first.close();
+                }
+            } finally {
+                if (second != null) {
+                    second.close();
+                }
+            }
+        }
+
+        private T advance(Iterator<T> iterator) {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
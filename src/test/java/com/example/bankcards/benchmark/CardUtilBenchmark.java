@@ -0,0 +1,34 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CardUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardUtilBenchmark {
+
+    @Benchmark
+    public String generateBySearch() {
+        SecureRandom random = new SecureRandom();
+        StringBuilder cardNumber;
+        do {
+            cardNumber = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                cardNumber.append(random.nextInt(10));
+            }
+        } while (!CardUtil.isValidNumber(cardNumber.toString()));
+        return cardNumber.toString();
+    }
+
+    @Benchmark
+    public String generate() {
+        return CardUtil.generate("400000");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionServiceBenchmark {
+
+    private static final String SECRET = "aS1sMWszLWVmZmVjdGl2ZS1tb2JpbGUh";
+    private static final String NUMBER = "1234567812345678";
+
+    private EncryptionService encryptionService;
+    private String encrypted;
+    private byte[] encryptedBytes;
+
+    @Setup
+    public void setup() {
+        encryptionService = new EncryptionService();
+        ReflectionTestUtils.setField(encryptionService, "secret", SECRET);
+        ReflectionTestUtils.setField(encryptionService, "rotatedSecrets", List.of());
+        encryptionService.init();
+
+        encrypted = encryptionService.encrypt(NUMBER);
+        encryptedBytes = Base64.getDecoder().decode(encrypted);
+    }
+
+    @Benchmark
+    public String encryptPerCall() throws Exception {
+        SecretKey key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        byte[] nonce = new byte[12];
+        new SecureRandom().nextBytes(nonce);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce));
+        byte[] encryptedData = cipher.doFinal(NUMBER.getBytes(StandardCharsets.UTF_8));
+
+        byte[] combined = new byte[12 + encryptedData.length];
+        System.arraycopy(nonce, 0, combined, 0, 12);
+        System.arraycopy(encryptedData, 0, combined, 12, encryptedData.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(NUMBER);
+    }
+
+    @Benchmark
+    public String decryptPerCall() throws Exception {
+        SecretKey key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        byte[] combined = Base64.getDecoder().decode(encrypted);
+        byte[] nonce = new byte[12];
+        byte[] encryptedData = new byte[combined.length - 12];
+        System.arraycopy(combined, 0, nonce, 0, 12);
+        System.arraycopy(combined, 12, encryptedData, 0, encryptedData.length);
+
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, nonce));
+        return new String(cipher.doFinal(encryptedData), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(encrypted, 0);
+    }
+
+    @Benchmark
+    public String decryptBytes() {
+        return encryptionService.decrypt(encryptedBytes, 0);
+    }
+}
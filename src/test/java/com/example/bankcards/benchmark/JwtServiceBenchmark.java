@@ -0,0 +1,56 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "VmVSeV9Db01wTGVYX3NFY1JlVF9mT3JfQmFOaw==";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiryTime", 900);
+        ReflectionTestUtils.setField(jwtService, "cacheSize", 10_000L);
+        jwtService.init();
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setRole(Role.ADMIN);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parsePerRequest() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return jwtService.parseToken(token);
+    }
+}
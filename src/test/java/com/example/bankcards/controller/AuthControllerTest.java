@@ -1,8 +1,14 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.auth.AuthRequest;
+import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.dto.auth.RefreshRequest;
 import com.example.bankcards.entity.User;
-import com.example.bankcards.security.JwtService;
+import com.example.bankcards.exception.ExceptionHandlerImpl;
+import com.example.bankcards.exception.InvalidTokenException;
+import com.example.bankcards.exception.ServiceBusyException;
+import com.example.bankcards.security.PasswordHasher;
+import com.example.bankcards.security.RefreshTokenService;
 import com.example.bankcards.security.UserDetailsServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -14,19 +20,23 @@ import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AuthController.class)
-@ContextConfiguration(classes = {AuthController.class, AuthControllerTest.TestSecurityConfig.class})
+@ContextConfiguration(classes = {
+        AuthController.class, ExceptionHandlerImpl.class, AuthControllerTest.TestSecurityConfig.class
+})
 class AuthControllerTest {
 
     @Configuration
@@ -54,10 +64,10 @@ class AuthControllerTest {
     private UserDetailsServiceImpl userDetailsService;
 
     @MockitoBean
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @MockitoBean
-    private JwtService jwtService;
+    private RefreshTokenService refreshTokenService;
 
     @Test
     void auth_ValidCredentials_ReturnsToken() throws Exception {
@@ -68,18 +78,24 @@ class AuthControllerTest {
         user.setEnabled(true);
 
         when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
-        when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
-        when(jwtService.generateToken(user)).thenReturn("jwt-token");
+        when(passwordHasher.matches("password", "encodedPassword"))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        when(refreshTokenService.issue(user)).thenReturn(new AuthResponse("jwt-token", "refresh-token"));
 
-        mockMvc.perform(post("/api/auth")
+        MvcResult result = mockMvc.perform(post("/api/auth")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.token").value("jwt-token"));
+                .andExpect(jsonPath("$.token").value("jwt-token"))
+                .andExpect(jsonPath("$.refresh_token").value("refresh-token"));
 
         verify(userDetailsService).loadUserByUsername("user");
-        verify(passwordEncoder).matches("password", "encodedPassword");
-        verify(jwtService).generateToken(user);
+        verify(passwordHasher).matches("password", "encodedPassword");
+        verify(refreshTokenService).issue(user);
     }
 
     @Test
@@ -91,17 +107,22 @@ class AuthControllerTest {
         user.setEnabled(true);
 
         when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
-        when(passwordEncoder.matches("wrongpassword", "encodedPassword")).thenReturn(false);
+        when(passwordHasher.matches("wrongpassword", "encodedPassword"))
+                .thenReturn(CompletableFuture.completedFuture(false));
 
-        mockMvc.perform(post("/api/auth")
+        MvcResult result = mockMvc.perform(post("/api/auth")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").doesNotExist());
 
         verify(userDetailsService).loadUserByUsername("user");
-        verify(passwordEncoder).matches("wrongpassword", "encodedPassword");
-        verifyNoInteractions(jwtService);
+        verify(passwordHasher).matches("wrongpassword", "encodedPassword");
+        verifyNoInteractions(refreshTokenService);
     }
 
     @Test
@@ -110,14 +131,81 @@ class AuthControllerTest {
 
         when(userDetailsService.loadUserByUsername("nonexistent")).thenReturn(null);
 
-        mockMvc.perform(post("/api/auth")
+        MvcResult result = mockMvc.perform(post("/api/auth")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").doesNotExist());
 
         verify(userDetailsService).loadUserByUsername("nonexistent");
-        verifyNoInteractions(passwordEncoder);
-        verifyNoInteractions(jwtService);
+        verifyNoInteractions(passwordHasher);
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    void auth_HashingExecutorSaturated_ReturnsServiceUnavailable() throws Exception {
+        AuthRequest request = new AuthRequest("user", "password");
+        User user = new User();
+        user.setUsername("user");
+        user.setPassword("encodedPassword");
+        user.setEnabled(true);
+
+        when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
+        when(passwordHasher.matches("password", "encodedPassword")).thenThrow(new ServiceBusyException());
+
+        mockMvc.perform(post("/api/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.code").value(503));
+
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    void refresh_ValidToken_ReturnsNewTokens() throws Exception {
+        RefreshRequest request = new RefreshRequest("refresh-token");
+
+        when(refreshTokenService.refresh("refresh-token"))
+                .thenReturn(new AuthResponse("new-jwt-token", "new-refresh-token"));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-jwt-token"))
+                .andExpect(jsonPath("$.refresh_token").value("new-refresh-token"));
+
+        verify(refreshTokenService).refresh("refresh-token");
+    }
+
+    @Test
+    void refresh_RevokedToken_ReturnsUnauthorized() throws Exception {
+        RefreshRequest request = new RefreshRequest("refresh-token");
+
+        when(refreshTokenService.refresh("refresh-token")).thenThrow(new InvalidTokenException());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.code").value(401));
+    }
+
+    @Test
+    void logout_RevokesRefreshToken() throws Exception {
+        RefreshRequest request = new RefreshRequest("refresh-token");
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Logged out."));
+
+        verify(refreshTokenService).revoke("refresh-token");
     }
 }
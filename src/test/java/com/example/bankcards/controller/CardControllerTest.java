@@ -1,6 +1,9 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.card.BulkCardItem;
+import com.example.bankcards.dto.card.BulkCreateCardRequest;
+import com.example.bankcards.dto.card.CardLookupRequest;
 import com.example.bankcards.dto.card.CreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardResponse;
 import com.example.bankcards.entity.Card;
@@ -13,6 +16,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -21,16 +27,18 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CardController.class)
 @ContextConfiguration(classes = {CardController.class, CardControllerTest.TestSecurityConfig.class})
@@ -113,6 +121,33 @@ class CardControllerTest {
         verify(cardService).getAll(any());
     }
 
+    @Test
+    void getAll_SliceMode_SkipsTotals() throws Exception {
+        CardDto cardDto = new CardDto(
+                1L,
+                "1234567812345678",
+                "John Doe",
+                LocalDate.now().plusYears(1),
+                Card.Status.ACTIVE,
+                BigDecimal.valueOf(1000),
+                false
+        );
+        Slice<CardDto> slice = new SliceImpl<>(List.of(cardDto), PageRequest.of(0, 1), true);
+
+        when(cardService.getAllSlice(any())).thenReturn(slice);
+
+        mockMvc.perform(get("/api/cards")
+                        .param("limit", "1")
+                        .param("slice", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(cardService, never()).getAll(any());
+    }
+
     @Test
     void create_ValidRequest_ReturnsCreatedCard() throws Exception {
         CreateCardRequest request = new CreateCardRequest("John Doe", LocalDate.now().plusYears(1), 1L);
@@ -141,6 +176,76 @@ class CardControllerTest {
         verify(cardService).create(any(CreateCardRequest.class));
     }
 
+    @Test
+    void lookup_ValidNumber_ReturnsCard() throws Exception {
+        CardDto cardDto = new CardDto(
+                1L,
+                "**** **** **** 5678",
+                "John Doe",
+                LocalDate.now().plusYears(1),
+                Card.Status.ACTIVE,
+                BigDecimal.valueOf(1000),
+                false
+        );
+
+        when(cardService.getByNumber("1234567812345678")).thenReturn(cardDto);
+
+        mockMvc.perform(post("/api/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CardLookupRequest("1234567812345678"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.number").value("**** **** **** 5678"));
+
+        verify(cardService).getByNumber("1234567812345678");
+    }
+
+    @Test
+    void lookup_MalformedNumber_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CardLookupRequest("1234"))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void createBulk_ValidRequest_StreamsCreatedCards() throws Exception {
+        BulkCreateCardRequest request = new BulkCreateCardRequest(1L, List.of(
+                new BulkCardItem("John Doe", LocalDate.now().plusYears(1)),
+                new BulkCardItem("Jane Doe", LocalDate.now().plusYears(1))
+        ));
+        CardDto cardDto = new CardDto(
+                1L,
+                "**** **** **** 5678",
+                "John Doe",
+                LocalDate.now().plusYears(1),
+                Card.Status.ACTIVE,
+                BigDecimal.ZERO,
+                false
+        );
+
+        when(cardService.createBulk(any(BulkCreateCardRequest.class))).thenReturn(Stream.of(
+                new CreateCardResponse("1234567812345678", cardDto),
+                new CreateCardResponse("8765432187654321", cardDto)
+        ));
+
+        MvcResult result = mockMvc.perform(post("/api/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"number\":\"1234567812345678\"")))
+                .andExpect(content().string(containsString("\"number\":\"8765432187654321\"")));
+
+        verify(cardService).createBulk(any(BulkCreateCardRequest.class));
+    }
+
     @Test
     void activate_ValidId_ReturnsSuccess() throws Exception {
         doNothing().when(cardService).activate(1L);
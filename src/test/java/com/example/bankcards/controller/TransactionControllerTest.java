@@ -0,0 +1,118 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TransactionController.class)
+@ContextConfiguration(classes = {TransactionController.class, TransactionControllerTest.TestSecurityConfig.class})
+class TransactionControllerTest {
+
+    @Configuration
+    @EnableWebSecurity
+    static class TestSecurityConfig {
+
+        @Bean
+        public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+            return http
+                    .csrf(AbstractHttpConfigurer::disable)
+                    .headers(AbstractHttpConfigurer::disable)
+                    .authorizeHttpRequests(authorizeRequests -> authorizeRequests
+                            .anyRequest().permitAll()
+                    )
+                    .build();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TransactionService transactionService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void exportByUser_Csv_StreamsRows() throws Exception {
+        TransactionDto transaction = new TransactionDto(
+                7L, 1L, 2L, new BigDecimal("10.50"), "rent, march", LocalDateTime.of(2025, 3, 1, 9, 30)
+        );
+        when(transactionService.exportByUserId(eq(1L), any(UserDto.class))).thenReturn(Stream.of(transaction));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/user/1/export")
+                        .param("format", "CSV")
+                        .sessionAttr(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, principal()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(3_600_000L, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("id,from,to,amount,comment,date\n"
+                        + "7,1,2,10.50,\"rent, march\",2025-03-01T09:30:00\n"));
+    }
+
+    @Test
+    void exportOwn_Ndjson_StreamsOneObjectPerLine() throws Exception {
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 9, 30);
+        when(transactionService.exportByUserId(eq(1L), any(UserDto.class))).thenReturn(Stream.of(
+                new TransactionDto(7L, 1L, 2L, BigDecimal.ONE, "", date),
+                new TransactionDto(8L, 2L, 1L, BigDecimal.TEN, "", date)
+        ));
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/own/export")
+                        .sessionAttr(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, principal()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern(
+                        "(?s)\\{\"id\":7,.*}\n\\{\"id\":8,.*}\n")));
+    }
+
+    private SecurityContextImpl principal() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        user.setRole(Role.USER);
+        user.setEnabled(true);
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.user.ChangePasswordRequest;
 import com.example.bankcards.dto.user.CreateUserRequest;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.service.CardService;
@@ -127,4 +128,29 @@ class UserControllerTest {
 
         verify(userService).setEnabled(1L, true);
     }
+
+    @Test
+    void setPassword_ValidRequest_ReturnsSuccess() throws Exception {
+        doNothing().when(userService).setPassword(1L, "newPassword");
+
+        mockMvc.perform(post("/api/users/1/password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ChangePasswordRequest("newPassword"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Password changed."));
+
+        verify(userService).setPassword(1L, "newPassword");
+    }
+
+    @Test
+    void revokeTokens_ValidId_ReturnsSuccess() throws Exception {
+        doNothing().when(userService).revokeTokens(1L);
+
+        mockMvc.perform(post("/api/users/1/revoke-tokens")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Tokens revoked."));
+
+        verify(userService).revokeTokens(1L);
+    }
 }
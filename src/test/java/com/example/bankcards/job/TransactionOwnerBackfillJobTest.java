@@ -0,0 +1,50 @@
+package com.example.bankcards.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionOwnerBackfillJobTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void run_BatchFails_RecordsFailureAndResumesFromFailedBatch() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionOwnerBackfillJob job = new TransactionOwnerBackfillJob(jdbcTemplate, meterRegistry, 1000);
+        TransactionOwnerBackfillHealthIndicator health = new TransactionOwnerBackfillHealthIndicator(job);
+
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class))).thenReturn(new long[]{1, 2500});
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(1000L))).thenReturn(1000);
+        when(jdbcTemplate.update(anyString(), eq(1001L), eq(2000L)))
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"))
+                .thenReturn(1000);
+        when(jdbcTemplate.update(anyString(), eq(2001L), eq(3000L))).thenReturn(500);
+
+        job.run();
+
+        assertFalse(job.isCompleted());
+        assertEquals(1.0, meterRegistry.counter("transactions.owner.backfill.failures").count());
+        assertEquals(Status.DOWN, health.health().getStatus());
+
+        job.run();
+
+        assertTrue(job.isCompleted());
+        assertNull(job.getLastError());
+        assertEquals(Status.UP, health.health().getStatus());
+        assertEquals(2500.0, meterRegistry.counter("transactions.owner.backfilled").count());
+        verify(jdbcTemplate, times(1)).update(anyString(), eq(1L), eq(1000L));
+    }
+}
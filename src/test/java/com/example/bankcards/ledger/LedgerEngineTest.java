@@ -0,0 +1,82 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+
+    @TempDir
+    private Path dir;
+
+    @Mock
+    private LedgerStore store;
+
+    @Test
+    void start_LeaseHeldByAnotherInstance_RefusesToStart() {
+        LedgerEngine engine = createEngine();
+
+        when(store.acquireLease(30)).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, engine::start);
+        assertFalse(engine.isWriter());
+        verify(store, never()).getCheckpoint(anyInt());
+        assertThrows(ServiceBusyException.class, () -> engine.deposit(createCard(), BigDecimal.TEN));
+    }
+
+    @Test
+    void flush_StoreFailure_ReportsDownAndAppliesBackpressure() throws Exception {
+        LedgerEngine engine = createEngine();
+        LedgerHealthIndicator health = new LedgerHealthIndicator(engine);
+
+        when(store.acquireLease(30)).thenReturn(true);
+        when(store.getCheckpoint(0)).thenReturn(0L);
+        when(store.loadBalances(anyCollection())).thenReturn(Map.of(1L, BigDecimal.valueOf(100)));
+        when(store.nextTransactionId()).thenReturn(1L);
+        doThrow(new IllegalStateException("Database unavailable")).when(store).write(eq(0), anyList());
+
+        engine.start();
+        assertTrue(engine.isWriter());
+        assertEquals(Status.UP, health.health().getStatus());
+
+        engine.deposit(createCard(), BigDecimal.TEN);
+        engine.flush();
+
+        assertNotNull(engine.getFlushError());
+        assertEquals(1, engine.getPendingSize());
+        assertEquals(Status.DOWN, health.health().getStatus());
+        assertThrows(ServiceBusyException.class, () -> engine.deposit(createCard(), BigDecimal.TEN));
+
+        engine.shutdown();
+        verify(store, never()).releaseLease();
+    }
+
+    private LedgerEngine createEngine() {
+        return new LedgerEngine(store, new SimpleMeterRegistry(), true, 1, 16, 100, 50, 30, 1, dir);
+    }
+
+    private Card createCard() {
+        User user = new User();
+        user.setId(1L);
+        Card card = new Card();
+        card.setId(1L);
+        card.setUser(user);
+        return card;
+    }
+}
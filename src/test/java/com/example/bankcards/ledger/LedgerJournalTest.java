@@ -0,0 +1,101 @@
+package com.example.bankcards.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void read_AppendedEntries_ReturnsSameEntries() throws IOException {
+        Path path = dir.resolve("shard-0.journal");
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            journal.append(List.of(entry(1), entry(2)));
+            journal.append(List.of(entry(3)));
+        }
+
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            List<LedgerEntry> entries = journal.read();
+
+            assertEquals(3, entries.size());
+            LedgerEntry last = entries.get(2);
+            assertEquals(3, last.getSequence());
+            assertEquals(103, last.getTransactionId());
+            assertEquals(7, last.getUserId());
+            assertEquals(1, last.getFromId());
+            assertEquals(2, last.getToId());
+            assertEquals(new BigDecimal("10.50"), last.getAmount());
+            assertEquals(new BigDecimal("989.50"), last.getFromBalance());
+            assertEquals(new BigDecimal("10.50"), last.getToBalance());
+            assertEquals("Перевод 3", last.getComment());
+            assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0, 3), last.getDate());
+        }
+    }
+
+    @Test
+    void read_TornTail_DropsPartialRecord() throws IOException {
+        Path path = dir.resolve("shard-0.journal");
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            journal.append(List.of(entry(1), entry(2)));
+        }
+        long validSize = Files.size(path);
+        Files.write(path, new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            assertEquals(2, journal.read().size());
+            assertEquals(validSize, journal.size());
+
+            journal.append(List.of(entry(3)));
+            assertEquals(3, journal.read().size());
+        }
+    }
+
+    @Test
+    void read_CorruptedRecord_StopsAtCorruption() throws IOException {
+        Path path = dir.resolve("shard-0.journal");
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            journal.append(List.of(entry(1), entry(2)));
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        try (LedgerJournal journal = new LedgerJournal(path)) {
+            List<LedgerEntry> entries = journal.read();
+
+            assertEquals(1, entries.size());
+            assertEquals(1, entries.get(0).getSequence());
+        }
+    }
+
+    @Test
+    void truncate_RemovesAllEntries() throws IOException {
+        try (LedgerJournal journal = new LedgerJournal(dir.resolve("shard-0.journal"))) {
+            journal.append(List.of(entry(1)));
+            journal.truncate();
+
+            assertEquals(0, journal.size());
+            assertTrue(journal.read().isEmpty());
+        }
+    }
+
+    private LedgerEntry entry(long sequence) {
+        return new LedgerEntry(
+                sequence, 100 + sequence, 7, 1, 2, new BigDecimal("10.50"),
+                new BigDecimal("989.50"), new BigDecimal("10.50"),
+                "Перевод " + sequence, LocalDateTime.of(2025, 1, 1, 12, 0, (int) sequence)
+        );
+    }
+}
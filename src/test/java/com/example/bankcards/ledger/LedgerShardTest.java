@@ -0,0 +1,112 @@
+package com.example.bankcards.ledger;
+
+import com.example.bankcards.exception.entity.CardNotFoundException;
+import com.example.bankcards.exception.entity.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerShardTest {
+
+    @TempDir
+    private Path dir;
+
+    @Mock
+    private LedgerStore store;
+
+    private LedgerJournal journal;
+    private LedgerShard shard;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        AtomicLong ids = new AtomicLong();
+        lenient().when(store.nextTransactionId()).thenAnswer(invocation -> ids.incrementAndGet());
+        lenient().when(store.loadBalances(anyCollection())).thenReturn(Map.of(
+                1L, BigDecimal.valueOf(1000),
+                2L, BigDecimal.valueOf(500)
+        ));
+        journal = new LedgerJournal(dir.resolve("shard-0.journal"));
+        shard = new LedgerShard(0, journal, store, 10, 16, 100, 10, new SimpleMeterRegistry().timer("sync"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        shard.close();
+    }
+
+    @Test
+    void process_Transfer_AppliesBalancesAndJournals() throws IOException {
+        LedgerShard.Operation transfer = new LedgerShard.Operation(1L, 1L, 2L, BigDecimal.valueOf(300), "Test", false);
+        LedgerShard.Operation deposit = new LedgerShard.Operation(1L, 2L, 2L, BigDecimal.valueOf(50), "", true);
+
+        shard.process(List.of(transfer, deposit));
+
+        LedgerEntry transferEntry = transfer.getResult().join();
+        assertEquals(11, transferEntry.getSequence());
+        assertEquals(1, transferEntry.getTransactionId());
+        assertEquals(BigDecimal.valueOf(700), transferEntry.getFromBalance());
+        assertEquals(BigDecimal.valueOf(800), transferEntry.getToBalance());
+        LedgerEntry depositEntry = deposit.getResult().join();
+        assertEquals(12, depositEntry.getSequence());
+        assertEquals(BigDecimal.valueOf(850), depositEntry.getToBalance());
+        assertEquals(2, journal.read().size());
+        assertEquals(2, shard.getPendingSize());
+        verify(store).loadBalances(anyCollection());
+    }
+
+    @Test
+    void process_InsufficientFunds_FailsOnlyThatOperation() throws IOException {
+        LedgerShard.Operation rejected = new LedgerShard.Operation(1L, 2L, 1L, BigDecimal.valueOf(600), "Test", false);
+        LedgerShard.Operation accepted = new LedgerShard.Operation(1L, 2L, 1L, BigDecimal.valueOf(400), "Test", false);
+
+        shard.process(List.of(rejected, accepted));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> rejected.getResult().join());
+        assertInstanceOf(InsufficientFundsException.class, ex.getCause());
+        assertEquals(BigDecimal.valueOf(100), accepted.getResult().join().getFromBalance());
+        assertEquals(1, journal.read().size());
+    }
+
+    @Test
+    void process_UnknownCard_ThrowsCardNotFound() {
+        LedgerShard.Operation operation = new LedgerShard.Operation(1L, 1L, 3L, BigDecimal.TEN, "Test", false);
+
+        shard.process(List.of(operation));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> operation.getResult().join());
+        assertInstanceOf(CardNotFoundException.class, ex.getCause());
+        verify(store, never()).nextTransactionId();
+    }
+
+    @Test
+    void flush_WritesPendingEntriesAndRetriesAfterFailure() {
+        shard.process(List.of(new LedgerShard.Operation(1L, 1L, 2L, BigDecimal.TEN, "Test", false)));
+        doThrow(new IllegalStateException()).doNothing().when(store).write(eq(0), anyList());
+
+        assertThrows(IllegalStateException.class, shard::flush);
+        assertEquals(1, shard.getPendingSize());
+
+        shard.flush();
+
+        assertEquals(0, shard.getPendingSize());
+        verify(store, times(2)).write(eq(0), anyList());
+    }
+}
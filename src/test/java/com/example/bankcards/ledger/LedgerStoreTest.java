@@ -0,0 +1,69 @@
+package com.example.bankcards.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void write_EntriesAlreadyCheckpointed_SkipsThemOnRetry() {
+        LedgerStore store = new LedgerStore(jdbcTemplate, new TransactionTemplate(transactionManager));
+        List<LedgerEntry> entries = List.of(createEntry(1, 11), createEntry(2, 12));
+
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM ledger_leases"), eq(Long.class), anyString()))
+                .thenReturn(1L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT sequence"), eq(Long.class), eq(0)))
+                .thenReturn(0L, 2L);
+
+        store.write(0, entries);
+        store.write(0, entries);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO transactions"), anyList());
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE cards"), anyList());
+        verify(jdbcTemplate).update(startsWith("UPDATE ledger_checkpoints"), eq(2L), eq(0));
+    }
+
+    @Test
+    void write_PartiallyCheckpointed_WritesOnlyNewerEntries() {
+        LedgerStore store = new LedgerStore(jdbcTemplate, new TransactionTemplate(transactionManager));
+        List<LedgerEntry> entries = List.of(createEntry(1, 11), createEntry(2, 12));
+
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM ledger_leases"), eq(Long.class), anyString()))
+                .thenReturn(1L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT sequence"), eq(Long.class), eq(0))).thenReturn(1L);
+
+        store.write(0, entries);
+
+        verify(jdbcTemplate).batchUpdate(
+                startsWith("INSERT INTO transactions"),
+                argThat((List<Object[]> args) -> args.size() == 1 && args.get(0)[0].equals(12L))
+        );
+        verify(jdbcTemplate).update(startsWith("UPDATE ledger_checkpoints"), eq(2L), eq(0));
+    }
+
+    private LedgerEntry createEntry(long sequence, long transactionId) {
+        return new LedgerEntry(
+                sequence, transactionId, 1L, 1L, 2L, BigDecimal.TEN,
+                BigDecimal.valueOf(90), BigDecimal.valueOf(110), "", LocalDateTime.now()
+        );
+    }
+}
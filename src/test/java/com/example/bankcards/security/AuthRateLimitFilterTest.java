@@ -0,0 +1,119 @@
+package com.example.bankcards.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthRateLimitFilterTest {
+
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new AuthRateLimitFilter(new SimpleMeterRegistry(), new ObjectMapper(), 5, 60, 2, 60, 600, 1000);
+    }
+
+    @Test
+    void doFilter_UsernameBucketExhausted_RejectsBeforeChain() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+
+        assertEquals(HttpStatus.OK.value(), perform("10.0.0.1", "user", chain).getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("10.0.0.2", "USER", chain).getStatus());
+        MockHttpServletResponse rejected = perform("10.0.0.3", "user", chain);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        verify(chain, times(2)).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_IpBucketExhausted_RejectsDifferentUsernames() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.OK.value(), perform("10.0.0.1", "user" + i, chain).getStatus());
+        }
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("10.0.0.1", "other", chain).getStatus());
+        verify(chain, times(5)).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_PassesReplayableBody() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            HttpServletRequest request = invocation.getArgument(0);
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("\"username\":\"user\""));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        perform("10.0.0.1", "user", chain);
+
+        verify(chain).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_CachedBody_NotifiesReadListener() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        ReadListener listener = mock(ReadListener.class);
+        doAnswer(invocation -> {
+            HttpServletRequest request = invocation.getArgument(0);
+            ServletInputStream stream = request.getInputStream();
+            doAnswer(read -> {
+                received.write(stream.readAllBytes());
+                return null;
+            }).when(listener).onDataAvailable();
+            stream.setReadListener(listener);
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        perform("10.0.0.1", "user", chain);
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onDataAvailable();
+        inOrder.verify(listener).onAllDataRead();
+        assertTrue(received.toString(StandardCharsets.UTF_8).contains("\"username\":\"user\""));
+    }
+
+    @Test
+    void doFilter_OtherPath_NotLimited() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+            request.setRemoteAddr("10.0.0.1");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+
+        verify(chain, times(10)).doFilter(any(), any());
+    }
+
+    private MockHttpServletResponse perform(String ip, String username, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"password\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
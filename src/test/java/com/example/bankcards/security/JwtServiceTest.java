@@ -0,0 +1,72 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secret", "VmVSeV9Db01wTGVYX3NFY1JlVF9mT3JfQmFOaw==");
+        ReflectionTestUtils.setField(jwtService, "expiryTime", 900);
+        ReflectionTestUtils.setField(jwtService, "cacheSize", 100L);
+        jwtService.init();
+    }
+
+    @Test
+    void parseToken_RepeatedToken_ReturnsCachedClaims() {
+        String token = jwtService.generateToken(createTestUser());
+
+        Claims first = jwtService.parseToken(token);
+        Claims second = jwtService.parseToken(token);
+
+        assertEquals("testuser", first.getSubject());
+        assertSame(first, second);
+    }
+
+    @Test
+    void generateToken_CarriesIdRoleAndVersionWithoutPassword() {
+        User user = createTestUser();
+        user.setTokenVersion(3);
+
+        Claims claims = jwtService.parseToken(jwtService.generateToken(user));
+        User principal = jwtService.getPrincipal(claims);
+
+        assertNull(claims.get("pwd"));
+        assertEquals(1L, principal.getId());
+        assertEquals("testuser", principal.getUsername());
+        assertEquals(Role.USER, principal.getRole());
+        assertEquals(3, principal.getTokenVersion());
+    }
+
+    @Test
+    void parseToken_TamperedSignature_ThrowsException() {
+        String token = jwtService.generateToken(createTestUser());
+        jwtService.parseToken(token);
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    private User createTestUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setPassword("encodedPassword");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache principalCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(new SimpleMeterRegistry(), 100, 60);
+        user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        principalCache.get("user", username -> user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evict_NoTransaction_InvalidatesImmediately() {
+        principalCache.evict(user);
+
+        User reloaded = new User();
+        assertSame(reloaded, principalCache.get("user", username -> reloaded));
+    }
+
+    @Test
+    void evict_InsideTransaction_InvalidatesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        principalCache.evict(user);
+
+        assertSame(user, principalCache.get("user", username -> new User()));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        User reloaded = new User();
+        assertSame(reloaded, principalCache.get("user", username -> reloaded));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidTokenException;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+
+    private JwtService jwtService;
+    private UserDetailsServiceImpl userDetailsService;
+    private RefreshTokenRevocations revocations;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secret", "VmVSeV9Db01wTGVYX3NFY1JlVF9mT3JfQmFOaw==");
+        ReflectionTestUtils.setField(jwtService, "expiryTime", 900);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiryTime", 3600);
+        ReflectionTestUtils.setField(jwtService, "cacheSize", 100L);
+        jwtService.init();
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        revocations = mock(RefreshTokenRevocations.class);
+        refreshTokenService = new RefreshTokenService(jwtService, userDetailsService, revocations);
+    }
+
+    @Test
+    void refresh_ValidToken_RevokesOldAndIssuesNewPair() {
+        User user = createTestUser();
+        String refreshToken = jwtService.generateRefreshToken(user);
+        String jti = jwtService.parseToken(refreshToken).getId();
+
+        when(userDetailsService.loadTokenState(1L)).thenReturn(new TokenState(0, true));
+        when(revocations.revoke(eq(jti), any())).thenReturn(true);
+
+        AuthResponse response = refreshTokenService.refresh(refreshToken);
+
+        assertNotNull(response.getToken());
+        Claims claims = jwtService.parseToken(response.getRefreshToken());
+        assertEquals(JwtService.REFRESH, claims.get(JwtService.TYPE, String.class));
+        assertNotEquals(jti, claims.getId());
+        verify(revocations).revoke(eq(jti), any());
+    }
+
+    @Test
+    void refresh_AlreadyRevokedToken_ThrowsException() {
+        String refreshToken = jwtService.generateRefreshToken(createTestUser());
+
+        when(revocations.isRevoked(anyString())).thenReturn(true);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(refreshToken));
+        verify(revocations, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    void refresh_ConcurrentlyRotatedToken_ThrowsException() {
+        String refreshToken = jwtService.generateRefreshToken(createTestUser());
+
+        when(userDetailsService.loadTokenState(1L)).thenReturn(new TokenState(0, true));
+        when(revocations.revoke(anyString(), any())).thenReturn(false);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(refreshToken));
+    }
+
+    @Test
+    void refresh_AccessToken_ThrowsException() {
+        String accessToken = jwtService.generateToken(createTestUser());
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(accessToken));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void refresh_TokensRevokedForUser_ThrowsException() {
+        String refreshToken = jwtService.generateRefreshToken(createTestUser());
+
+        when(userDetailsService.loadTokenState(1L)).thenReturn(new TokenState(1, true));
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.refresh(refreshToken));
+        verify(revocations, never()).revoke(anyString(), any());
+    }
+
+    private User createTestUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.CardUtil;
+import com.example.bankcards.util.EncryptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.ByteBuffer;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardNumberPoolTest {
+
+    private EncryptionService encryptionService;
+    private JdbcTemplate jdbcTemplate;
+    private CardNumberPool cardNumberPool;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = mock(EncryptionService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(encryptionService.encrypt(anyString())).thenReturn("encrypted-card-number");
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> counts(invocation, 1));
+        cardNumberPool = new CardNumberPool(
+                encryptionService, jdbcTemplate, new SimpleMeterRegistry(),
+                List.of("400000"), 5, 20, 8, 3600
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardNumberPool.shutdown();
+    }
+
+    @Test
+    void refill_FillsUpToHighWatermarkInBatches() {
+        cardNumberPool.refill();
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            CardNumberPool.Reservation reservation = cardNumberPool.claim();
+            assertTrue(reservation.getNumber().startsWith("400000"));
+            assertArrayEquals(CardUtil.hash(reservation.getNumber()), reservation.getNumberHash());
+            numbers.add(reservation.getNumber());
+        }
+
+        assertEquals(20, numbers.size());
+    }
+
+    @Test
+    void refill_DuplicateReservations_StopsUntilNextCheck() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> counts(invocation, 0));
+
+        cardNumberPool.refill();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT IGNORE"), anyList());
+        assertThrows(IllegalStateException.class, () -> cardNumberPool.claim());
+    }
+
+    @Test
+    void claim_PartiallyDuplicateBatch_KeepsOnlyInsertedRows() {
+        List<List<Object[]>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            batches.add(invocation.getArgument(1));
+            return batches.size() == 1 ? new int[]{1, 0} : counts(invocation, 1);
+        });
+
+        List<CardNumberPool.Reservation> claimed = withoutRefill().claim(2);
+
+        assertEquals(2, claimed.size());
+        assertEquals(2, batches.size());
+        assertArrayEquals((byte[]) batches.get(0).get(0)[0], claimed.get(0).getNumberHash());
+        assertEquals(1, batches.get(1).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claim_BatchCountsUnavailable_KeepsRowsOwnedInDatabase() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenAnswer(invocation -> counts(invocation, Statement.SUCCESS_NO_INFO));
+        when(jdbcTemplate.query(startsWith("SELECT number_hash"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> List.of(ByteBuffer.wrap((byte[]) invocation.getArgument(3))));
+
+        List<CardNumberPool.Reservation> claimed = withoutRefill().claim(2);
+
+        assertEquals(2, claimed.size());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void purge_DeletesClaimedAndExpiredReservationsSeparately() {
+        cardNumberPool.purge();
+
+        verify(jdbcTemplate).update(startsWith("DELETE r FROM card_number_reservations r JOIN cards"));
+        verify(jdbcTemplate).update(
+                startsWith("DELETE FROM card_number_reservations WHERE reserved_at"), any(Object[].class)
+        );
+    }
+
+    @Test
+    void claim_EmptyPool_ReservesSynchronously() {
+        CardNumberPool.Reservation reservation = cardNumberPool.claim();
+
+        assertTrue(CardUtil.isValidNumber(reservation.getNumber()));
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), anyList());
+    }
+
+    private CardNumberPool withoutRefill() {
+        cardNumberPool.shutdown();
+        cardNumberPool = new CardNumberPool(
+                encryptionService, jdbcTemplate, new SimpleMeterRegistry(),
+                List.of("400000"), 0, 20, 8, 3600
+        );
+        return cardNumberPool;
+    }
+
+    private int[] counts(InvocationOnMock invocation, int count) {
+        int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+        Arrays.fill(counts, count);
+        return counts;
+    }
+}
@@ -2,6 +2,8 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.card.BulkCardItem;
+import com.example.bankcards.dto.card.BulkCreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardRequest;
 import com.example.bankcards.dto.card.CreateCardResponse;
 import com.example.bankcards.entity.Card;
@@ -11,21 +13,27 @@ import com.example.bankcards.exception.entity.CardDeletedException;
 import com.example.bankcards.exception.entity.CardNotFoundException;
 import com.example.bankcards.exception.entity.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardView;
 import com.example.bankcards.repository.UserRepository;
-import com.example.bankcards.util.EncryptionService;
+import com.example.bankcards.util.CardUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,7 +46,7 @@ class CardServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private EncryptionService encryptionService;
+    private CardNumberPool cardNumberPool;
 
     @InjectMocks
     private CardService cardService;
@@ -46,22 +54,32 @@ class CardServiceTest {
     @Test
     void getById_ExistingCard_ReturnsCardDto() {
         Card card = createTestCard();
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
+        when(cardRepository.findViewById(1L)).thenReturn(Optional.of(createView(card)));
 
         CardDto result = cardService.getById(1L);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        verify(cardRepository).findById(1L);
+        assertEquals("**** **** **** 5678", result.getNumber());
+        verify(cardRepository).findViewById(1L);
+        verifyNoInteractions(cardNumberPool);
+    }
+
+    @Test
+    void getById_ExpiredCard_ReturnsExpiredStatus() {
+        Card card = createTestCard();
+        card.setExpiryDate(LocalDate.now().minusDays(1));
+        when(cardRepository.findViewById(1L)).thenReturn(Optional.of(createView(card)));
+
+        assertEquals(Card.Status.EXPIRED, cardService.getById(1L).getStatus());
     }
 
     @Test
     void getById_NonExistingCard_ThrowsException() {
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cardRepository.findViewById(1L)).thenReturn(Optional.empty());
 
         assertThrows(CardNotFoundException.class, () -> cardService.getById(1L));
-        verify(cardRepository).findById(1L);
+        verify(cardRepository).findViewById(1L);
     }
 
     @Test
@@ -70,10 +88,10 @@ class CardServiceTest {
         CreateCardRequest request = new CreateCardRequest("John Doe", LocalDate.now().plusYears(1), 1L);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(cardRepository.existsByNumberHash(anyString())).thenReturn(false);
-        when(encryptionService.encrypt(anyString())).thenReturn("encrypted-card-number");
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
-        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> {
+        when(cardNumberPool.claim()).thenReturn(new CardNumberPool.Reservation(
+                "4000001234567899", "encrypted-card-number", 0, new byte[32], System.currentTimeMillis()
+        ));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> {
             Card card = invocation.getArgument(0);
             card.setId(1L);
             return card;
@@ -83,9 +101,93 @@ class CardServiceTest {
 
         assertNotNull(result);
         assertNotNull(result.getNumber());
-        assertNotNull(result.getCardDto());
+        assertEquals("4000001234567899", result.getNumber());
+        assertEquals("**** **** **** 7899", result.getCardDto().getNumber());
         verify(userRepository).findById(1L);
-        verify(cardRepository).save(any(Card.class));
+        verify(cardRepository).saveAndFlush(argThat(card -> card.getNumber().equals("encrypted-card-number")));
+    }
+
+    @Test
+    void create_DuplicateNumber_RetriesWithNextReservation() {
+        User user = createTestUser();
+        CreateCardRequest request = new CreateCardRequest("John Doe", LocalDate.now().plusYears(1), 1L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardNumberPool.claim()).thenReturn(
+                new CardNumberPool.Reservation("4000001234567899", "first", 0, new byte[32], 0),
+                new CardNumberPool.Reservation("4000009876543213", "second", 0, new byte[32], 0)
+        );
+        when(cardRepository.saveAndFlush(any(Card.class)))
+                .thenThrow(violation("cards.uk_cards_number_hash"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateCardResponse result = cardService.create(request);
+
+        assertEquals("4000009876543213", result.getNumber());
+        verify(cardNumberPool, times(2)).claim();
+    }
+
+    @Test
+    void create_OtherConstraintViolation_DoesNotRetry() {
+        User user = createTestUser();
+        CreateCardRequest request = new CreateCardRequest("John Doe", LocalDate.now().plusYears(1), 1L);
+        DataIntegrityViolationException violation = violation("fk_cards_user_id");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardNumberPool.claim())
+                .thenReturn(new CardNumberPool.Reservation("4000001234567899", "first", 0, new byte[32], 0));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> cardService.create(request)));
+        verify(cardNumberPool).claim();
+    }
+
+    @Test
+    void createBulk_NumberCollision_RetriesChunkWithNewReservations() {
+        User user = createTestUser();
+        BulkCreateCardRequest request = new BulkCreateCardRequest(1L, List.of(
+                new BulkCardItem("John Doe", LocalDate.now().plusYears(1)),
+                new BulkCardItem("Jane Doe", LocalDate.now().plusYears(1)),
+                new BulkCardItem("Jack Doe", LocalDate.now().plusYears(1))
+        ));
+        ReflectionTestUtils.setField(cardService, "bulkChunkSize", 2);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cardNumberPool.claim(2))
+                .thenReturn(List.of(createReservation("4000000000000010"), createReservation("4000000000000002")))
+                .thenReturn(List.of(createReservation("4000000000000010"), createReservation("4000000000000028")));
+        when(cardNumberPool.claim(1)).thenReturn(List.of(createReservation("4000000000000036")));
+        when(cardRepository.saveAllAndFlush(anyList()))
+                .thenThrow(violation("cards.uk_cards_number_hash"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<CreateCardResponse> result = cardService.createBulk(request).toList();
+
+        assertEquals(
+                List.of("4000000000000010", "4000000000000028", "4000000000000036"),
+                result.stream().map(CreateCardResponse::getNumber).toList()
+        );
+        assertEquals("Jane Doe", result.get(1).getCardDto().getHolder());
+        verify(cardRepository, times(3)).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void getByNumber_ExistingCard_ReturnsCardDto() {
+        Card card = createTestCard();
+        when(cardRepository.findViewByNumberHash(CardUtil.hash("1234567812345678")))
+                .thenReturn(Optional.of(createView(card)));
+
+        CardDto result = cardService.getByNumber("1234567812345678");
+
+        assertEquals(1L, result.getId());
+        assertEquals("**** **** **** 5678", result.getNumber());
+    }
+
+    @Test
+    void getByNumber_UnknownNumber_ThrowsException() {
+        when(cardRepository.findViewByNumberHash(any())).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> cardService.getByNumber("1234567812345678"));
     }
 
     @Test
@@ -117,7 +219,6 @@ class CardServiceTest {
         Card card = createTestCard();
         card.setDeleted(true);
         when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
 
         assertThrows(CardDeletedException.class, () -> cardService.activate(1L));
         verify(cardRepository).findById(1L);
@@ -151,10 +252,19 @@ class CardServiceTest {
         verify(cardRepository).save(card);
     }
 
+    private CardNumberPool.Reservation createReservation(String number) {
+        return new CardNumberPool.Reservation(number, "encrypted-" + number, 0, CardUtil.hash(number), 0);
+    }
+
+    private CardView createView(Card card) {
+        return new SpelAwareProxyProjectionFactory().createProjection(CardView.class, card);
+    }
+
     private Card createTestCard() {
         Card card = new Card();
         card.setId(1L);
         card.setNumber("1234567812345678");
+        card.setLast4("5678");
         card.setHolder("John Doe");
         card.setExpiryDate(LocalDate.now().plusYears(1));
         card.setStatus(Card.Status.ACTIVE);
@@ -177,4 +287,10 @@ class CardServiceTest {
         user.setRole(Role.USER);
         return user;
     }
+
+    private DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                "could not execute statement", new SQLException("constraint violation"), constraintName
+        ));
+    }
 }
@@ -0,0 +1,178 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.transaction.TransactionRequest;
+import com.example.bankcards.exception.ApiError;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.exception.entity.InsufficientFundsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test");
+    private final TransactionDto transaction = new TransactionDto(
+            10L, 1L, 2L, BigDecimal.valueOf(300), "Test", LocalDateTime.of(2025, 1, 1, 12, 0)
+    );
+
+    private TransactionTemplate transactionTemplate;
+    private LockRetryTemplate lockRetryTemplate;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = mock(TransactionTemplate.class);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lockRetryTemplate = new LockRetryTemplate(transactionTemplate, new SimpleMeterRegistry(), 3, 1);
+        idempotencyService = new IdempotencyService(
+                jdbcTemplate, lockRetryTemplate, objectMapper, new SimpleMeterRegistry(), 86400, 100
+        );
+    }
+
+    @Test
+    void execute_NoKey_RunsActionWithoutStoring() {
+        TransactionDto result = idempotencyService.execute(1L, null, "transfer", request, () -> transaction);
+
+        assertSame(transaction, result);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void execute_RepeatedKey_ReturnsCachedResponse() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute(1L, "key-1", "transfer", request, () -> {
+            calls.incrementAndGet();
+            return transaction;
+        });
+        TransactionDto result = idempotencyService.execute(1L, "key-1", "transfer", request, () -> {
+            calls.incrementAndGet();
+            return transaction;
+        });
+
+        assertSame(transaction, result);
+        assertEquals(1, calls.get());
+        ArgumentCaptor<String> response = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(startsWith("UPDATE idempotency_keys"), response.capture(), eq(1L), eq("key-1"));
+        assertTrue(response.getValue().contains("\"id\":10"));
+    }
+
+    @Test
+    void execute_KeyStoredByAnotherNode_ReturnsStoredResponse() throws Exception {
+        byte[] requestHash = storeAndCaptureHash();
+        String response = objectMapper.writeValueAsString(transaction);
+        IdempotencyService otherNode = new IdempotencyService(
+                jdbcTemplate, lockRetryTemplate, objectMapper, new SimpleMeterRegistry(), 86400, 100
+        );
+        mockStoredRow(requestHash, response);
+
+        TransactionDto result = otherNode.execute(1L, "key-1", "transfer", request, () -> {
+            throw new AssertionError("Action must not be executed");
+        });
+
+        assertEquals(10L, result.getId());
+        assertEquals(BigDecimal.valueOf(300), result.getAmount());
+        assertEquals(transaction.getDate(), result.getDate());
+    }
+
+    @Test
+    void execute_KeyInProgress_ThrowsConflict() throws Exception {
+        byte[] requestHash = storeAndCaptureHash();
+        IdempotencyService otherNode = new IdempotencyService(
+                jdbcTemplate, lockRetryTemplate, objectMapper, new SimpleMeterRegistry(), 86400, 100
+        );
+        mockStoredRow(requestHash, null);
+
+        IdempotencyKeyException ex = assertThrows(IdempotencyKeyException.class, () ->
+                otherNode.execute(1L, "key-1", "transfer", request, () -> transaction));
+        assertEquals(ApiError.IDEMPOTENCY_KEY_IN_USE, ex.getError());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequest_ThrowsMismatch() {
+        idempotencyService.execute(1L, "key-1", "transfer", request, () -> transaction);
+        TransactionRequest otherRequest = new TransactionRequest(1L, 2L, BigDecimal.valueOf(500), "Test");
+
+        IdempotencyKeyException ex = assertThrows(IdempotencyKeyException.class, () ->
+                idempotencyService.execute(1L, "key-1", "transfer", otherRequest, () -> transaction));
+        assertEquals(ApiError.IDEMPOTENCY_KEY_MISMATCH, ex.getError());
+    }
+
+    @Test
+    void execute_ActionFails_RollsBackKeyWithAction() {
+        assertThrows(InsufficientFundsException.class, () ->
+                idempotencyService.execute(1L, "key-1", "transfer", request, () -> {
+                    throw new InsufficientFundsException();
+                }));
+
+        verify(transactionTemplate).execute(any());
+        verify(jdbcTemplate).update(startsWith("INSERT INTO idempotency_keys"), eq(1L), eq("key-1"), any(), any());
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE idempotency_keys"), any(Object[].class));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM idempotency_keys"), any(Object[].class));
+    }
+
+    @Test
+    void execute_KeyAndResponse_WrittenInActionTransaction() {
+        idempotencyService.execute(1L, "key-1", "transfer", request, () -> {
+            verify(jdbcTemplate).update(startsWith("INSERT INTO idempotency_keys"), eq(1L), eq("key-1"), any(), any());
+            return transaction;
+        });
+
+        verify(transactionTemplate).execute(any());
+        verify(jdbcTemplate).update(startsWith("UPDATE idempotency_keys"), anyString(), eq(1L), eq("key-1"));
+    }
+
+    @Test
+    void execute_TooLongKey_ThrowsInvalid() {
+        IdempotencyKeyException ex = assertThrows(IdempotencyKeyException.class, () ->
+                idempotencyService.execute(1L, "k".repeat(65), "transfer", request, () -> transaction));
+        assertEquals(ApiError.IDEMPOTENCY_KEY_INVALID, ex.getError());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private byte[] storeAndCaptureHash() {
+        idempotencyService.execute(1L, "key-1", "transfer", request, () -> transaction);
+        ArgumentCaptor<byte[]> requestHash = ArgumentCaptor.forClass(byte[].class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO idempotency_keys"), eq(1L), eq("key-1"),
+                requestHash.capture(), any());
+        return requestHash.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockStoredRow(byte[] requestHash, String response) throws Exception {
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), any(Object[].class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getBytes(1)).thenReturn(requestHash);
+        when(rs.getString(2)).thenReturn(response);
+        when(jdbcTemplate.query(startsWith("SELECT request_hash"), any(RowMapper.class), eq(1L), eq("key-1")))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+    }
+}
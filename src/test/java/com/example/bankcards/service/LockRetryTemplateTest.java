@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LockRetryTemplateTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LockRetryTemplate lockRetryTemplate;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        meterRegistry = new SimpleMeterRegistry();
+        lockRetryTemplate = new LockRetryTemplate(transactionTemplate, meterRegistry, 3, 1);
+    }
+
+    @Test
+    void execute_TransientLockFailure_Retries() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = lockRetryTemplate.execute("transfer", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("Deadlock found");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, meterRegistry.counter("transfers.retries", "operation", "transfer").count());
+    }
+
+    @Test
+    void execute_RetriesExhausted_ThrowsServiceBusy() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ServiceBusyException.class, () -> lockRetryTemplate.execute("transfer", () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("Lock wait timeout exceeded");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, meterRegistry.counter("transfers.retries.exhausted").count());
+    }
+
+    @Test
+    void execute_BusinessException_IsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> lockRetryTemplate.execute("transfer", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_InsideActiveTransaction_LeavesRetryToOuterCall() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(CannotAcquireLockException.class, () -> lockRetryTemplate.execute("transfer", () -> {
+                attempts.incrementAndGet();
+                throw new CannotAcquireLockException("Deadlock found");
+            }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, meterRegistry.counter("transfers.retries", "operation", "transfer").count());
+    }
+}
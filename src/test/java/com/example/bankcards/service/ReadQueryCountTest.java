@@ -0,0 +1,360 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.job.TransactionArchiveJob;
+import com.example.bankcards.job.TransactionOwnerBackfillJob;
+import com.example.bankcards.ledger.LedgerEngine;
+import com.example.bankcards.security.PasswordHasher;
+import com.example.bankcards.security.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop",
+        "transactions.analytics.max-days=366"
+})
+@Import({
+        CardService.class, UserService.class, TransactionService.class,
+        ReadQueryCountTest.StatementCounterConfig.class
+})
+class ReadQueryCountTest {
+
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+    @TestConfiguration
+    static class StatementCounterConfig {
+
+        @Bean
+        static BeanPostProcessor statementCounter() {
+            return new BeanPostProcessor() {
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @MockitoBean
+    private CardNumberPool cardNumberPool;
+
+    @MockitoBean
+    private PasswordHasher passwordHasher;
+
+    @MockitoBean
+    private PrincipalCache principalCache;
+
+    @MockitoBean
+    private LockRetryTemplate lockRetryTemplate;
+
+    @MockitoBean
+    private LedgerEngine ledgerEngine;
+
+    @MockitoBean
+    private TransactionOwnerBackfillJob ownerBackfillJob;
+
+    @MockitoBean
+    private TransactionArchiveJob archiveJob;
+
+    private User user;
+    private Card card;
+    private final Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "date"));
+    private final Pageable firstOnly = PageRequest.of(0, 1, Sort.by("id"));
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_transaction_counts "
+                + "(user_id BIGINT PRIMARY KEY, transaction_count BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS card_balance_snapshots "
+                + "(card_id BIGINT, taken_at TIMESTAMP, balance DECIMAL(19, 4), PRIMARY KEY (card_id, taken_at))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS transactions_archive (date TIMESTAMP, id BIGINT, "
+                + "from_id BIGINT, to_id BIGINT, from_user_id BIGINT, to_user_id BIGINT, amount DECIMAL(19, 4), "
+                + "from_balance_after DECIMAL(19, 4), to_balance_after DECIMAL(19, 4), comment VARCHAR(100), "
+                + "PRIMARY KEY (date, id))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS card_daily_totals (card_id BIGINT, date DATE, "
+                + "in_sum DECIMAL(19, 4), out_sum DECIMAL(19, 4), transaction_count BIGINT, PRIMARY KEY (card_id, date))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS owner_daily_totals (user_id BIGINT, date DATE, "
+                + "in_sum DECIMAL(19, 4), out_sum DECIMAL(19, 4), transaction_count BIGINT, PRIMARY KEY (user_id, date))");
+        user = createUser("user");
+        card = createCard(user, (byte) 1);
+        Card other = createCard(user, (byte) 2);
+        for (int i = 0; i < 5; i++) {
+            createTransaction(card, other, i);
+            createTransaction(other, card, i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void cardEndpoints_IssueFixedStatementCount() {
+        assertEquals(2, count(() -> cardService.getAll(firstOnly)));
+        assertEquals(1, count(() -> cardService.getAllSlice(firstOnly)));
+        assertEquals(1, count(() -> cardService.getById(card.getId())));
+        assertEquals(2, count(() -> cardService.getByUserId(user.getId(), firstOnly)));
+        assertEquals(1, count(() -> cardService.getSliceByUserId(user.getId(), firstOnly)));
+    }
+
+    @Test
+    void userEndpoints_IssueFixedStatementCount() {
+        assertEquals(2, count(() -> userService.getAll(firstOnly)));
+        assertEquals(1, count(() -> userService.getAllSlice(firstOnly)));
+        assertEquals(1, count(() -> userService.getById(user.getId())));
+    }
+
+    @Test
+    void transactionEndpoints_IssueFixedStatementCount() {
+        UserDto requester = user.toDto();
+
+        assertEquals(10, transactionService.getByCardId(card.getId(), requester, pageable).getNumberOfElements());
+        assertEquals(2, count(() -> transactionService.getByCardId(card.getId(), requester, pageable)));
+        assertEquals(2, count(() -> transactionService.getSliceByCardId(card.getId(), requester, pageable)));
+        assertEquals(2, count(() -> transactionService.getByUserId(user.getId(), requester, pageable)));
+        assertEquals(1, count(() -> transactionService.getSliceByUserId(user.getId(), requester, pageable)));
+
+        when(ownerBackfillJob.isCompleted()).thenReturn(true);
+        assertEquals(2, count(() -> transactionService.getByUserId(user.getId(), requester, pageable)));
+        assertEquals(1, count(() -> transactionService.getSliceByUserId(user.getId(), requester, pageable)));
+    }
+
+    @Test
+    void balanceAt_ReadsRecordedBalanceInSingleLookup() {
+        UserDto requester = user.toDto();
+        jdbcTemplate.update("UPDATE transactions SET from_balance_after = 1000, to_balance_after = 1000");
+
+        assertEquals(2, count(() -> transactionService.getBalanceAt(card.getId(), requester, LocalDateTime.now())));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(
+                transactionService.getBalanceAt(card.getId(), requester, LocalDateTime.now()).getBalance()
+        ));
+    }
+
+    @Test
+    void balanceAt_ReplaysLegacyRowsFromSnapshot() {
+        UserDto requester = user.toDto();
+        jdbcTemplate.update(
+                "INSERT INTO card_balance_snapshots (card_id, taken_at, balance) VALUES (?, ?, ?)",
+                card.getId(), LocalDateTime.now().minusDays(1), BigDecimal.valueOf(500)
+        );
+
+        assertEquals(4, count(() -> transactionService.getBalanceAt(card.getId(), requester, LocalDateTime.now())));
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(
+                transactionService.getBalanceAt(card.getId(), requester, LocalDateTime.now()).getBalance()
+        ));
+    }
+
+    @Test
+    void dailyTotals_ReadOnlyAggregateRows() {
+        UserDto requester = user.toDto();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 365; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO card_daily_totals (card_id, date, in_sum, out_sum, transaction_count) "
+                            + "VALUES (?, ?, 10, 5, 2)",
+                    card.getId(), today.minusDays(i)
+            );
+            jdbcTemplate.update(
+                    "INSERT INTO owner_daily_totals (user_id, date, in_sum, out_sum, transaction_count) "
+                            + "VALUES (?, ?, 10, 5, 2)",
+                    user.getId(), today.minusDays(i)
+            );
+        }
+        LocalDate from = today.minusDays(364);
+
+        assertEquals(365, transactionService.getDailyTotalsByCardId(card.getId(), requester, from, today).size());
+        assertEquals(2, count(() -> transactionService.getDailyTotalsByCardId(card.getId(), requester, from, today)));
+        assertEquals(1, count(() -> transactionService.getDailyTotalsByUserId(user.getId(), requester, from, today)));
+        assertEquals(0, BigDecimal.TEN.compareTo(
+                transactionService.getDailyTotalsByUserId(user.getId(), requester, today, today).get(0).getIn()
+        ));
+    }
+
+    @Test
+    void cursorPages_QueryArchiveOnlyWhenRangeReachesIt() {
+        UserDto requester = user.toDto();
+        LocalDateTime archivedBefore = LocalDateTime.now().minusDays(1);
+        jdbcTemplate.update(
+                "INSERT INTO transactions_archive (date, id, from_id, to_id, from_user_id, to_user_id, amount, comment) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, 10, '')",
+                archivedBefore.minusDays(1), 1_000_000L, card.getId(), card.getId(), user.getId(), user.getId()
+        );
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+
+        assertEquals(2, count(() -> transactionService.seekByCardId(card.getId(), requester, null, 5)));
+        assertEquals(3, count(() -> transactionService.seekByCardId(card.getId(), requester, null, 20)));
+        assertEquals(11, transactionService.seekByCardId(card.getId(), requester, null, 20).getContent().size());
+
+        when(ownerBackfillJob.isCompleted()).thenReturn(true);
+        assertEquals(2, count(() -> transactionService.seekByUserId(user.getId(), requester, null, 20)));
+        assertEquals(11, transactionService.seekByUserId(user.getId(), requester, null, 20).getContent().size());
+    }
+
+    @Test
+    void cursorPages_KeepHotRowsStampedAtBoundary() {
+        UserDto requester = user.toDto();
+        LocalDateTime archivedBefore = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        jdbcTemplate.update("UPDATE transactions SET date = ?", archivedBefore);
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+
+        Set<Long> ids = new HashSet<>();
+        String cursor = null;
+        do {
+            CursorPage<TransactionDto> page = transactionService.seekByCardId(card.getId(), requester, cursor, 3);
+            page.getContent().forEach(transaction -> assertTrue(ids.add(transaction.getId())));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(10, ids.size());
+    }
+
+    @Test
+    void offsetPages_ContinueIntoArchiveWithoutDuplicates() {
+        UserDto requester = user.toDto();
+        LocalDateTime archivedBefore = LocalDateTime.now().minusDays(1);
+        createTransaction(entityManager.find(Card.class, card.getId()), entityManager.find(Card.class, card.getId()),
+                2 * 24 * 60);
+        entityManager.flush();
+        jdbcTemplate.update(
+                "INSERT INTO transactions_archive (date, id, from_id, to_id, from_user_id, to_user_id, amount, comment) "
+                        + "SELECT date, id, from_id, to_id, from_user_id, to_user_id, amount, comment "
+                        + "FROM transactions WHERE date < ?",
+                archivedBefore
+        );
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+        Pageable second = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "date"));
+
+        assertEquals(2, count(() -> transactionService.getSliceByCardId(card.getId(), requester, second)));
+        List<TransactionDto> archived = transactionService.getSliceByCardId(card.getId(), requester, second).getContent();
+        assertEquals(1, archived.size());
+        assertTrue(archived.get(0).getDate().isBefore(archivedBefore));
+
+        when(ownerBackfillJob.isCompleted()).thenReturn(true);
+        assertEquals(1, transactionService.getSliceByUserId(user.getId(), requester, second).getContent().size());
+    }
+
+    private int count(Supplier<?> request) {
+        entityManager.clear();
+        STATEMENTS.set(0);
+        request.get();
+        return STATEMENTS.get();
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(Role.USER);
+        user.setEnabled(true);
+        return entityManager.persist(user);
+    }
+
+    private Card createCard(User user, byte hash) {
+        Card card = new Card();
+        card.setNumber("encrypted");
+        card.setNumberHash(new byte[]{hash});
+        card.setLast4("000" + hash);
+        card.setHolder("John Doe");
+        card.setExpiryDate(LocalDate.now().plusYears(1));
+        card.setStatus(Card.Status.ACTIVE);
+        card.setBalance(BigDecimal.valueOf(1000));
+        card.setUser(user);
+        return entityManager.persist(card);
+    }
+
+    private void createTransaction(Card from, Card to, int minutes) {
+        Transaction transaction = new Transaction();
+        transaction.setFrom(from);
+        transaction.setTo(to);
+        transaction.setFromUserId(from.getUser().getId());
+        transaction.setToUserId(to.getUser().getId());
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setComment("");
+        transaction.setDate(LocalDateTime.now().minusMinutes(minutes));
+        entityManager.persist(transaction);
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return count(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return count(super.getConnection(username, password));
+        }
+
+        private Connection count(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            STATEMENTS.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    }
+            );
+        }
+    }
+}
@@ -1,32 +1,55 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.transaction.BatchTransferRequest;
+import com.example.bankcards.dto.transaction.BatchTransferResult;
+import com.example.bankcards.dto.transaction.DailyTotalDto;
 import com.example.bankcards.dto.transaction.DepositRequest;
 import com.example.bankcards.dto.transaction.TransactionRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BatchModeNotSupportedException;
+import com.example.bankcards.exception.InvalidDateRangeException;
+import com.example.bankcards.exception.entity.CardBlockedException;
 import com.example.bankcards.exception.entity.CardNotFoundException;
 import com.example.bankcards.exception.entity.InsufficientFundsException;
+import com.example.bankcards.job.TransactionArchiveJob;
+import com.example.bankcards.job.TransactionOwnerBackfillJob;
+import com.example.bankcards.ledger.LedgerEngine;
+import com.example.bankcards.repository.CardOwnerView;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.DailyTotals;
 import com.example.bankcards.repository.TransactionRepository;
-import com.example.bankcards.util.EncryptionService;
+import com.example.bankcards.util.CursorUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.sql.Date;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,30 +65,47 @@ class TransactionServiceTest {
     private CardRepository cardRepository;
 
     @Mock
-    private EncryptionService encryptionService;
+    private LockRetryTemplate lockRetryTemplate;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private TransactionOwnerBackfillJob ownerBackfillJob;
+
+    @Mock
+    private TransactionArchiveJob archiveJob;
 
     @InjectMocks
     private TransactionService transactionService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionService, "maxAnalyticsDays", 366);
+        lenient().when(lockRetryTemplate.execute(anyString(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(lockRetryTemplate.recordLockWait(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+    }
+
     @Test
     void deposit_ValidRequest_CreatesTransaction() {
         Card card = createTestCard();
         DepositRequest request = new DepositRequest(1L, BigDecimal.valueOf(500));
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
+        when(cardRepository.findAllForUpdate(Set.of(1L))).thenReturn(List.of(card));
         when(cardRepository.save(any(Card.class))).thenReturn(card);
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
             Transaction transaction = invocation.getArgument(0);
             transaction.setId(1L);
             return transaction;
         });
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
 
         TransactionDto result = transactionService.deposit(request);
 
         assertNotNull(result);
         assertEquals(BigDecimal.valueOf(1500), card.getBalance());
-        verify(cardRepository).findById(1L);
+        verify(cardRepository).findAllForUpdate(Set.of(1L));
         verify(cardRepository).save(card);
         verify(transactionRepository).save(any(Transaction.class));
     }
@@ -73,10 +113,10 @@ class TransactionServiceTest {
     @Test
     void deposit_NonExistingCard_ThrowsException() {
         DepositRequest request = new DepositRequest(1L, BigDecimal.valueOf(500));
-        when(cardRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cardRepository.findAllForUpdate(Set.of(1L))).thenReturn(List.of());
 
         assertThrows(CardNotFoundException.class, () -> transactionService.deposit(request));
-        verify(cardRepository).findById(1L);
+        verify(cardRepository).findAllForUpdate(Set.of(1L));
         verifyNoMoreInteractions(cardRepository, transactionRepository);
     }
 
@@ -90,24 +130,25 @@ class TransactionServiceTest {
         TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
         UserDto requester = new UserDto(1L, "user", Role.USER, true);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
         when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
             Transaction transaction = invocation.getArgument(0);
             transaction.setId(1L);
             return transaction;
         });
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
 
         TransactionDto result = transactionService.transfer(request, requester);
 
         assertNotNull(result);
         assertEquals(BigDecimal.valueOf(700), fromCard.getBalance());
         assertEquals(BigDecimal.valueOf(800), toCard.getBalance());
-        verify(cardRepository, times(2)).findById(anyLong());
+        verify(cardRepository).findAllForUpdate(Set.of(1L, 2L));
         verify(cardRepository, times(2)).save(any(Card.class));
-        verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionRepository).save(argThat(transaction ->
+                BigDecimal.valueOf(700).equals(transaction.getFromBalanceAfter())
+                        && BigDecimal.valueOf(800).equals(transaction.getToBalanceAfter())
+        ));
     }
 
     @Test
@@ -119,14 +160,12 @@ class TransactionServiceTest {
         TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(1500), "Test transfer");
         UserDto requester = new UserDto(1L, "user", Role.USER, true);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
-        when(encryptionService.decrypt(anyString())).thenReturn("1234567812345678");
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
 
         assertThrows(InsufficientFundsException.class, () ->
                 transactionService.transfer(request, requester));
 
-        verify(cardRepository, times(2)).findById(anyLong());
+        verify(cardRepository).findAllForUpdate(Set.of(1L, 2L));
         verifyNoMoreInteractions(cardRepository, transactionRepository);
     }
 
@@ -139,33 +178,469 @@ class TransactionServiceTest {
         TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
         UserDto requester = new UserDto(999L, "hacker", Role.USER, true);
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
 
         assertThrows(AccessDeniedException.class, () ->
                 transactionService.transfer(request, requester));
 
-        verify(cardRepository, times(2)).findById(anyLong());
+        verify(cardRepository).findAllForUpdate(Set.of(1L, 2L));
         verifyNoMoreInteractions(cardRepository, transactionRepository);
     }
 
     @Test
     void getByCardId_AdminAccess_ReturnsTransactions() {
-        Card card = createTestCard();
         UserDto admin = new UserDto(999L, "admin", Role.ADMIN, true);
-        Transaction transaction = new Transaction();
-        transaction.setFrom(card);
-        transaction.setTo(card);
-        Page<Transaction> page = new PageImpl<>(List.of(transaction));
+        TransactionDto transaction = new TransactionDto(1L, 1L, 1L, BigDecimal.TEN, "", LocalDateTime.now());
+        Pageable pageable = Pageable.ofSize(1);
+        Slice<TransactionDto> slice = new SliceImpl<>(List.of(transaction), pageable, true);
+
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(42)));
+        when(transactionRepository.findSliceByCardIds(List.of(1L), null, pageable)).thenReturn(slice);
+
+        Page<TransactionDto> result = transactionService.getByCardId(1L, admin, pageable);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(42, result.getTotalElements());
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void getSliceByCardId_AnotherOwner_ThrowsException() {
+        UserDto requester = new UserDto(2L, "user", Role.USER, true);
+
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(0)));
+
+        assertThrows(AccessDeniedException.class, () ->
+                transactionService.getSliceByCardId(1L, requester, Pageable.ofSize(10)));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void transfer_LocksCardsInIdOrder() {
+        Card fromCard = createTestCard();
+        fromCard.setId(2L);
+        Card toCard = createTestCard();
+
+        TransactionRequest request = new TransactionRequest(2L, 1L, BigDecimal.valueOf(300), "Test transfer");
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(anyCollection())).thenReturn(List.of(toCard, fromCard));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.transfer(request, requester);
+
+        verify(cardRepository).findAllForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L))));
+        verify(lockRetryTemplate).execute(eq("transfer"), any());
+    }
+
+    @Test
+    void transfer_LedgerEnabled_DelegatesToLedger() {
+        Card fromCard = createTestCard();
+        Card toCard = createTestCard();
+        toCard.setId(2L);
+
+        TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        TransactionDto transaction = new TransactionDto(
+                1L, 1L, 2L, BigDecimal.valueOf(300), "Test transfer", LocalDateTime.now()
+        );
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(cardRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        when(ledgerEngine.transfer(fromCard, toCard, BigDecimal.valueOf(300), "Test transfer")).thenReturn(transaction);
+
+        TransactionDto result = transactionService.transfer(request, requester);
+
+        assertSame(transaction, result);
+        verify(cardRepository).findAllById(Set.of(1L, 2L));
+        verifyNoMoreInteractions(cardRepository, transactionRepository, lockRetryTemplate);
+    }
+
+    @Test
+    void deposit_LedgerEnabled_BlockedCard_ThrowsException() {
+        Card card = createTestCard();
+        card.setStatus(Card.Status.BLOCKED);
+        DepositRequest request = new DepositRequest(1L, BigDecimal.valueOf(500));
 
+        when(ledgerEngine.isEnabled()).thenReturn(true);
         when(cardRepository.findById(1L)).thenReturn(Optional.of(card));
-        when(transactionRepository.findByFromIdOrToId(eq(1L), eq(1L), any(Pageable.class))).thenReturn(page);
 
-        Page<TransactionDto> result = transactionService.getByCardId(1L, admin, Pageable.unpaged());
+        assertThrows(CardBlockedException.class, () -> transactionService.deposit(request));
+        verify(ledgerEngine, never()).deposit(any(), any());
+    }
 
-        assertNotNull(result);
-        verify(cardRepository).findById(1L);
-        verify(transactionRepository).findByFromIdOrToId(eq(1L), eq(1L), any(Pageable.class));
+    @Test
+    void transferBatch_AllOrNothing_AppliesAllTransfers() {
+        Card first = createTestCard();
+        Card second = createTestCard();
+        second.setId(2L);
+        Card third = createTestCard();
+        third.setId(3L);
+
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferRequest.Mode.ALL_OR_NOTHING, List.of(
+                new TransactionRequest(3L, 1L, BigDecimal.valueOf(200), "First"),
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(1100), "Second")
+        ));
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L, 3L))).thenReturn(List.of(first, second, third));
+
+        List<BatchTransferResult> results = transactionService.transferBatch(request, requester);
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(BatchTransferResult::isSuccess));
+        assertEquals(BigDecimal.valueOf(100), first.getBalance());
+        assertEquals(BigDecimal.valueOf(2100), second.getBalance());
+        assertEquals(BigDecimal.valueOf(800), third.getBalance());
+        verify(cardRepository).findAllForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L, 3L))));
+        verify(transactionRepository).saveAll(argThat(transactions -> ((Collection<?>) transactions).size() == 2));
+        verify(lockRetryTemplate).execute(eq("batch_transfer"), any());
+    }
+
+    @Test
+    void transferBatch_AllOrNothing_FailedTransfer_ThrowsException() {
+        Card first = createTestCard();
+        Card second = createTestCard();
+        second.setId(2L);
+
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferRequest.Mode.ALL_OR_NOTHING, List.of(
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(600), "First"),
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(600), "Second")
+        ));
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+
+        assertThrows(InsufficientFundsException.class, () -> transactionService.transferBatch(request, requester));
+        verify(cardRepository, never()).saveAll(any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void transferBatch_PerItem_ReturnsResultForEachTransfer() {
+        Card first = createTestCard();
+        Card second = createTestCard();
+        second.setId(2L);
+
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferRequest.Mode.PER_ITEM, List.of(
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(600), "First"),
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(600), "Second"),
+                new TransactionRequest(1L, 5L, BigDecimal.valueOf(100), "Third")
+        ));
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L, 5L))).thenReturn(List.of(first, second));
+
+        List<BatchTransferResult> results = transactionService.transferBatch(request, requester);
+
+        assertTrue(results.get(0).isSuccess());
+        assertNotNull(results.get(0).getTransaction());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Insufficient funds", results.get(1).getError());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Card not found", results.get(2).getError());
+        assertEquals(BigDecimal.valueOf(400), first.getBalance());
+        assertEquals(BigDecimal.valueOf(1600), second.getBalance());
+        verify(transactionRepository).saveAll(argThat(transactions -> ((Collection<?>) transactions).size() == 1));
+    }
+
+    @Test
+    void transferBatch_LedgerEnabled_AllOrNothing_ThrowsException() {
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferRequest.Mode.ALL_OR_NOTHING, List.of(
+                new TransactionRequest(1L, 2L, BigDecimal.valueOf(100), "First")
+        ));
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+
+        assertThrows(BatchModeNotSupportedException.class, () -> transactionService.transferBatch(request, requester));
+        verifyNoInteractions(cardRepository, transactionRepository);
+    }
+
+    @Test
+    void seekByUserId_MoreRowsThanLimit_ReturnsNextCursor() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<TransactionDto> rows = List.of(
+                new TransactionDto(3L, 1L, 2L, BigDecimal.ONE, "", date),
+                new TransactionDto(2L, 2L, 1L, BigDecimal.ONE, "", date),
+                new TransactionDto(1L, 1L, 2L, BigDecimal.ONE, "", date.minusDays(1))
+        );
+
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(1L, 2L));
+        when(transactionRepository.findByCardIdsBefore(
+                List.of(1L, 2L), CursorUtil.FIRST.getDate(), CursorUtil.FIRST.getId(), 3, null
+        )).thenReturn(rows);
+
+        CursorPage<TransactionDto> result = transactionService.seekByUserId(1L, requester, null, 2);
+
+        assertEquals(2, result.getContent().size());
+        CursorUtil.Position next = CursorUtil.decode(result.getNextCursor());
+        assertEquals(date, next.getDate());
+        assertEquals(2L, next.getId());
+    }
+
+    @Test
+    void seekByCardId_LastPage_ReturnsNoCursor() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 12, 0);
+        String cursor = CursorUtil.encode(date, 5L);
+
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(1)));
+        when(transactionRepository.findByCardIdsBefore(List.of(1L), date, 5L, 11, null)).thenReturn(List.of(
+                new TransactionDto(4L, 1L, 1L, BigDecimal.TEN, "", date)
+        ));
+
+        CursorPage<TransactionDto> result = transactionService.seekByCardId(1L, requester, cursor, 10);
+
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void seekByCardId_HotRowsExhausted_ContinuesInArchive() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDateTime archivedBefore = LocalDateTime.of(2025, 1, 1, 0, 0);
+        TransactionDto recent = new TransactionDto(9L, 1L, 1L, BigDecimal.TEN, "", archivedBefore.plusDays(3));
+        TransactionDto archived = new TransactionDto(4L, 1L, 1L, BigDecimal.TEN, "", archivedBefore.minusDays(3));
+
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(2)));
+        when(transactionRepository.findByCardIdsBefore(
+                List.of(1L), CursorUtil.FIRST.getDate(), CursorUtil.FIRST.getId(), 11, archivedBefore
+        )).thenReturn(List.of(recent));
+        when(transactionRepository.findArchivedByCardIdsBefore(List.of(1L), recent.getDate(), 9L, 10))
+                .thenReturn(List.of(archived));
+
+        CursorPage<TransactionDto> result = transactionService.seekByCardId(1L, requester, null, 10);
+
+        assertEquals(List.of(recent, archived), result.getContent());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void seekByCardId_CursorBeforeArchiveBoundary_QueriesArchiveOnly() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDateTime archivedBefore = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime date = archivedBefore.minusDays(10);
+
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(2)));
+        when(transactionRepository.findArchivedByCardIdsBefore(List.of(1L), date, 5L, 11)).thenReturn(List.of());
+
+        CursorPage<TransactionDto> result = transactionService.seekByCardId(1L, requester, CursorUtil.encode(date, 5L), 10);
+
+        assertTrue(result.getContent().isEmpty());
+        verify(transactionRepository, never()).findByCardIdsBefore(any(), any(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void seekByCardId_FullHotPage_SkipsArchive() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDateTime date = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+        LocalDateTime archivedBefore = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(2)));
+        when(transactionRepository.findByCardIdsBefore(
+                List.of(1L), CursorUtil.FIRST.getDate(), CursorUtil.FIRST.getId(), 2, archivedBefore
+        )).thenReturn(List.of(
+                new TransactionDto(2L, 1L, 1L, BigDecimal.TEN, "", date),
+                new TransactionDto(1L, 1L, 1L, BigDecimal.TEN, "", date)
+        ));
+
+        CursorPage<TransactionDto> result = transactionService.seekByCardId(1L, requester, null, 1);
+
+        assertEquals(1, result.getContent().size());
+        assertNotNull(result.getNextCursor());
+        verify(transactionRepository, never()).findArchivedByCardIdsBefore(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void seekByUserId_AnotherUser_ThrowsException() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        assertThrows(AccessDeniedException.class, () -> transactionService.seekByUserId(2L, requester, null, 10));
+        verifyNoInteractions(cardRepository, transactionRepository);
+    }
+
+    @Test
+    void seekByUserId_OwnersBackfilled_UsesOwnerColumns() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(ownerBackfillJob.isCompleted()).thenReturn(true);
+        when(transactionRepository.findByOwnerIdBefore(
+                1L, CursorUtil.FIRST.getDate(), CursorUtil.FIRST.getId(), 11, null
+        )).thenReturn(List.of());
+
+        CursorPage<TransactionDto> result = transactionService.seekByUserId(1L, requester, null, 10);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void getByUserId_OwnersBackfilled_UsesOwnerColumns() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        Pageable pageable = Pageable.ofSize(10);
+        Slice<TransactionDto> slice = new SliceImpl<>(List.of(), pageable, false);
+
+        when(ownerBackfillJob.isCompleted()).thenReturn(true);
+        when(transactionRepository.findSliceByOwnerId(1L, null, pageable)).thenReturn(slice);
+        when(transactionRepository.getTransactionCountByOwnerId(1L)).thenReturn(0L);
+
+        Page<TransactionDto> result = transactionService.getByUserId(1L, requester, pageable);
+
+        assertEquals(0, result.getTotalElements());
+        verify(transactionRepository, never()).findSliceByUserId(any(), any());
+    }
+
+    @Test
+    void getByUserId_ArchiveExistsBeforeBackfill_PagesCardsAcrossArchive() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        Pageable pageable = Pageable.ofSize(10);
+        LocalDateTime archivedBefore = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Slice<TransactionDto> slice = new SliceImpl<>(List.of(), pageable, false);
+
+        when(archiveJob.getArchivedBefore()).thenReturn(archivedBefore);
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(1L, 2L));
+        when(transactionRepository.findSliceByCardIds(List.of(1L, 2L), archivedBefore, pageable)).thenReturn(slice);
+        when(transactionRepository.getTransactionCountByOwnerId(1L)).thenReturn(0L);
+
+        transactionService.getByUserId(1L, requester, pageable);
+
+        verify(transactionRepository, never()).findSliceByUserId(any(), any());
+    }
+
+    @Test
+    void transfer_ValidRequest_IncrementsTransactionCounts() {
+        Card fromCard = createTestCard();
+        fromCard.setTransactionCount(3);
+        Card toCard = createTestCard();
+        toCard.setId(2L);
+
+        TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.transfer(request, requester);
+
+        assertEquals(4, fromCard.getTransactionCount());
+        assertEquals(1, toCard.getTransactionCount());
+        verify(transactionRepository).incrementTransactionCounts(Map.of(1L, 1L));
+    }
+
+    @Test
+    void transfer_ValidRequest_SetsOwnerColumns() {
+        Card fromCard = createTestCard();
+        Card toCard = createTestCard();
+        toCard.setId(2L);
+
+        TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.transfer(request, requester);
+
+        verify(transactionRepository).save(argThat(transaction ->
+                transaction.getFromUserId() == 1L && transaction.getToUserId() == 1L));
+    }
+
+    @Test
+    void transfer_ValidRequest_IncrementsDailyTotals() {
+        Card fromCard = createTestCard();
+        Card toCard = createTestCard();
+        toCard.setId(2L);
+
+        TransactionRequest request = new TransactionRequest(1L, 2L, BigDecimal.valueOf(300), "Test transfer");
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+
+        when(cardRepository.findAllForUpdate(Set.of(1L, 2L))).thenReturn(List.of(fromCard, toCard));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.transfer(request, requester);
+
+        ArgumentCaptor<DailyTotals> captor = ArgumentCaptor.forClass(DailyTotals.class);
+        verify(transactionRepository).incrementDailyTotals(captor.capture());
+        Date today = Date.valueOf(LocalDate.now());
+        List<Object[]> args = captor.getValue().toCardBatchArgs();
+        assertEquals(2, args.size());
+        assertArrayEquals(new Object[]{1L, today, BigDecimal.ZERO, BigDecimal.valueOf(300), 1L}, args.get(0));
+        assertArrayEquals(new Object[]{2L, today, BigDecimal.valueOf(300), BigDecimal.ZERO, 1L}, args.get(1));
+        List<Object[]> ownerArgs = captor.getValue().toOwnerBatchArgs();
+        assertEquals(1, ownerArgs.size());
+        assertArrayEquals(new Object[]{1L, today, BigDecimal.ZERO, BigDecimal.ZERO, 1L}, ownerArgs.get(0));
+    }
+
+    @Test
+    void deposit_ValidRequest_IncrementsDailyInflowOnly() {
+        Card card = createTestCard();
+        DepositRequest request = new DepositRequest(1L, BigDecimal.valueOf(500));
+
+        when(cardRepository.findAllForUpdate(Set.of(1L))).thenReturn(List.of(card));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transactionService.deposit(request);
+
+        ArgumentCaptor<DailyTotals> captor = ArgumentCaptor.forClass(DailyTotals.class);
+        verify(transactionRepository).incrementDailyTotals(captor.capture());
+        List<Object[]> args = captor.getValue().toCardBatchArgs();
+        assertEquals(1, args.size());
+        assertArrayEquals(
+                new Object[]{1L, Date.valueOf(LocalDate.now()), BigDecimal.valueOf(500), BigDecimal.ZERO, 1L},
+                args.get(0)
+        );
+        assertArrayEquals(
+                new Object[]{1L, Date.valueOf(LocalDate.now()), BigDecimal.valueOf(500), BigDecimal.ZERO, 1L},
+                captor.getValue().toOwnerBatchArgs().get(0)
+        );
+    }
+
+    @Test
+    void getDailyTotalsByCardId_ValidRange_ReadsAggregates() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        List<DailyTotalDto> totals = List.of(new DailyTotalDto(from, BigDecimal.TEN, BigDecimal.ONE, 2));
+
+        when(cardRepository.findOwnerViewById(1L)).thenReturn(Optional.of(createOwnerView(2)));
+        when(transactionRepository.findDailyTotalsByCardId(1L, from, to)).thenReturn(totals);
+
+        assertEquals(totals, transactionService.getDailyTotalsByCardId(1L, requester, from, to));
+    }
+
+    @Test
+    void getDailyTotalsByCardId_InvalidRange_ThrowsException() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+
+        assertThrows(InvalidDateRangeException.class, () ->
+                transactionService.getDailyTotalsByCardId(1L, requester, from, from.minusDays(1)));
+        assertThrows(InvalidDateRangeException.class, () ->
+                transactionService.getDailyTotalsByCardId(1L, requester, from, from.plusDays(366)));
+        verifyNoInteractions(cardRepository, transactionRepository);
+    }
+
+    @Test
+    void getDailyTotalsByUserId_AnotherUser_ThrowsException() {
+        UserDto requester = new UserDto(1L, "user", Role.USER, true);
+        LocalDate from = LocalDate.of(2025, 1, 1);
+
+        assertThrows(AccessDeniedException.class, () ->
+                transactionService.getDailyTotalsByUserId(2L, requester, from, from));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private CardOwnerView createOwnerView(long transactionCount) {
+        return new SpelAwareProxyProjectionFactory().createProjection(
+                CardOwnerView.class, Map.of("userId", 1L, "transactionCount", transactionCount)
+        );
     }
 
     private Card createTestCard() {
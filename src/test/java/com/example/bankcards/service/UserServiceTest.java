@@ -7,6 +7,8 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.entity.UserAlreadyExistsException;
 import com.example.bankcards.exception.entity.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.PasswordHasher;
+import com.example.bankcards.security.PrincipalCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -15,7 +17,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
 import java.util.Optional;
@@ -31,7 +32,10 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private PrincipalCache principalCache;
 
     @InjectMocks
     private UserService userService;
@@ -39,7 +43,7 @@ class UserServiceTest {
     @Test
     void getById_ExistingUser_ReturnsUserDto() {
         User user = createTestUser();
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(user.toDto()));
 
         UserDto result = userService.getById(1L);
 
@@ -48,15 +52,15 @@ class UserServiceTest {
         assertEquals("testuser", result.getUsername());
         assertEquals(Role.USER, result.getRole());
         assertTrue(result.isEnabled());
-        verify(userRepository).findById(1L);
+        verify(userRepository).findDtoById(1L);
     }
 
     @Test
     void getById_NonExistingUser_ThrowsException() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.getById(1L));
-        verify(userRepository).findById(1L);
+        verify(userRepository).findDtoById(1L);
     }
 
     @Test
@@ -66,7 +70,7 @@ class UserServiceTest {
         savedUser.setUsername("newuser");
 
         when(userRepository.existsByUsername("newuser")).thenReturn(false);
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        when(passwordHasher.encode("password")).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(savedUser);
 
         UserDto result = userService.create(request);
@@ -74,7 +78,7 @@ class UserServiceTest {
         assertNotNull(result);
         assertEquals("newuser", result.getUsername());
         verify(userRepository).existsByUsername("newuser");
-        verify(passwordEncoder).encode("password");
+        verify(passwordHasher).encode("password");
         verify(userRepository).save(any(User.class));
     }
 
@@ -85,7 +89,7 @@ class UserServiceTest {
 
         assertThrows(UserAlreadyExistsException.class, () -> userService.create(request));
         verify(userRepository).existsByUsername("existinguser");
-        verifyNoInteractions(passwordEncoder);
+        verifyNoInteractions(passwordHasher);
         verifyNoMoreInteractions(userRepository);
     }
 
@@ -100,6 +104,7 @@ class UserServiceTest {
         assertFalse(user.isEnabled());
         verify(userRepository).findById(1L);
         verify(userRepository).save(user);
+        verify(principalCache).evict(user);
     }
 
     @Test
@@ -109,19 +114,48 @@ class UserServiceTest {
         assertThrows(UserNotFoundException.class, () -> userService.setEnabled(1L, true));
         verify(userRepository).findById(1L);
         verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(principalCache);
+    }
+
+    @Test
+    void setPassword_ExistingUser_UpdatesPasswordAndEvictsPrincipal() {
+        User user = createTestUser();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordHasher.encode("newPassword")).thenReturn("newEncodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.setPassword(1L, "newPassword");
+
+        assertEquals("newEncodedPassword", user.getPassword());
+        assertEquals(1, user.getTokenVersion());
+        verify(userRepository).save(user);
+        verify(principalCache).evict(user);
+    }
+
+    @Test
+    void revokeTokens_ExistingUser_IncrementsTokenVersion() {
+        User user = createTestUser();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.revokeTokens(1L);
+
+        assertEquals(1, user.getTokenVersion());
+        verify(userRepository).save(user);
+        verify(principalCache).evict(user);
     }
 
     @Test
     void getAll_ReturnsUsersPage() {
         User user = createTestUser();
-        Page<User> page = new PageImpl<>(List.of(user));
-        when(userRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Page<UserDto> page = new PageImpl<>(List.of(user.toDto()));
+        when(userRepository.findDtos(any(Pageable.class))).thenReturn(page);
 
         Page<UserDto> result = userService.getAll(Pageable.unpaged());
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(userRepository).findAll(any(Pageable.class));
+        verify(userRepository).findDtos(any(Pageable.class));
     }
 
     private User createTestUser() {
@@ -0,0 +1,59 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardUtilTest {
+
+    private static final int SAMPLES = 100_000;
+    private static final double CHI_SQUARE_CRITICAL = 27.877;
+
+    @Test
+    void generate_WithBinPrefix_ReturnsValidNumberWithPrefix() {
+        for (int i = 0; i < 1_000; i++) {
+            String number = CardUtil.generate("510000");
+
+            assertEquals(16, number.length());
+            assertTrue(number.startsWith("510000"));
+            assertTrue(CardUtil.isValidNumber(number));
+        }
+    }
+
+    @Test
+    void hash_ReturnsRawSha256Bytes() {
+        assertEquals(32, CardUtil.hash("1234567812345678").length);
+        assertArrayEquals(CardUtil.hash("1234567812345678"), CardUtil.hash("1234567812345678"));
+        assertFalse(Arrays.equals(CardUtil.hash("1234567812345678"), CardUtil.hash("1234567812345670")));
+    }
+
+    @Test
+    void generate_InvalidBinPrefix_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> CardUtil.generate("4000a0"));
+        assertThrows(IllegalArgumentException.class, () -> CardUtil.generate("4000000000000000"));
+    }
+
+    @Test
+    void generate_DigitsAreUniformlyDistributed() {
+        Random random = new Random(42);
+        long[][] counts = new long[16][10];
+        for (int i = 0; i < SAMPLES; i++) {
+            String number = CardUtil.generate("", random);
+            for (int position = 0; position < 16; position++) {
+                counts[position][number.charAt(position) - '0']++;
+            }
+        }
+
+        double expected = SAMPLES / 10.0;
+        for (int position = 0; position < 16; position++) {
+            double chiSquare = 0;
+            for (long count : counts[position]) {
+                chiSquare += (count - expected) * (count - expected) / expected;
+            }
+            assertTrue(chiSquare < CHI_SQUARE_CRITICAL, "position " + position + ": chi-square " + chiSquare);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvUtilTest {
+
+    @Test
+    void row_PlainValues_JoinsWithCommas() {
+        assertEquals("1,2,10.50,,x\n", CsvUtil.row(1L, 2L, "10.50", null, "x"));
+    }
+
+    @Test
+    void escape_SpecialCharacters_QuotesValue() {
+        assertEquals("\"a,b\"", CsvUtil.escape("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", CsvUtil.escape("say \"hi\""));
+        assertEquals("\"line\nbreak\"", CsvUtil.escape("line\nbreak"));
+    }
+
+    @Test
+    void escape_FormulaPrefix_NeutralizesFormula() {
+        assertEquals("'=SUM(A1:A2)", CsvUtil.escape("=SUM(A1:A2)"));
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", CsvUtil.escape("=HYPERLINK(\"x\")"));
+    }
+}
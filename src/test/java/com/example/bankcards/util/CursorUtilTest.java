@@ -0,0 +1,47 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilTest {
+
+    @Test
+    void decode_EncodedPosition_ReturnsSamePosition() {
+        LocalDateTime date = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000);
+
+        CursorUtil.Position position = CursorUtil.decode(CursorUtil.encode(date, 42L));
+
+        assertEquals(date, position.getDate());
+        assertEquals(42L, position.getId());
+    }
+
+    @Test
+    void decode_NoCursor_ReturnsFirstPosition() {
+        assertSame(CursorUtil.FIRST, CursorUtil.decode(null));
+        assertSame(CursorUtil.FIRST, CursorUtil.decode(""));
+    }
+
+    @Test
+    void decode_MalformedCursor_ThrowsException() {
+        assertThrows(InvalidCursorException.class, () -> CursorUtil.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> CursorUtil.decode("AAAA"));
+    }
+
+    @Test
+    void decode_EpochSecondOutOfRange_ThrowsException() {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Long.BYTES)
+                .putLong(Long.MAX_VALUE)
+                .putInt(0)
+                .putLong(1L)
+                .array();
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        assertThrows(InvalidCursorException.class, () -> CursorUtil.decode(cursor));
+    }
+}
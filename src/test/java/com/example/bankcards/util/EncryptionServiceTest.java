@@ -0,0 +1,62 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptionServiceTest {
+
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = createService();
+    }
+
+    @Test
+    void encrypt_RoundTrip_ReturnsOriginal() {
+        String encrypted = encryptionService.encrypt("1234567812345678");
+
+        assertEquals("1234567812345678", encryptionService.decrypt(encrypted, 0));
+        assertEquals("1234567812345678", encryptionService.decrypt(Base64.getDecoder().decode(encrypted), 0));
+    }
+
+    @Test
+    void encrypt_SameInput_UsesFreshNonce() {
+        assertNotEquals(encryptionService.encrypt("1234567812345678"), encryptionService.encrypt("1234567812345678"));
+    }
+
+    @Test
+    void decrypt_TamperedCiphertext_ThrowsException() {
+        byte[] encrypted = encryptionService.encryptToBytes("1234567812345678");
+        encrypted[encrypted.length - 1] ^= 1;
+
+        assertThrows(RuntimeException.class, () -> encryptionService.decrypt(encrypted, 0));
+    }
+
+    @Test
+    void encrypt_RotatedKey_UsesNewestVersionAndDecryptsOldOnes() {
+        String legacy = encryptionService.encrypt("1234567812345678");
+        EncryptionService rotated = createService("bmV3LWtleS1mb3ItY2FyZC1udW1iZXJz");
+
+        String encrypted = rotated.encrypt("1234567812345678");
+
+        assertEquals(1, rotated.getCurrentVersion());
+        assertEquals("1234567812345678", rotated.decrypt(legacy, 0));
+        assertEquals("1234567812345678", rotated.decrypt(encrypted, 1));
+        assertThrows(RuntimeException.class, () -> rotated.decrypt(encrypted, 0));
+    }
+
+    private EncryptionService createService(String... rotatedSecrets) {
+        EncryptionService service = new EncryptionService();
+        ReflectionTestUtils.setField(service, "secret", "aS1sMWszLWVmZmVjdGl2ZS1tb2JpbGUh");
+        ReflectionTestUtils.setField(service, "rotatedSecrets", List.of(rotatedSecrets));
+        service.init();
+        return service;
+    }
+}
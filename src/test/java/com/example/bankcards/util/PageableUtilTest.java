@@ -0,0 +1,23 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PageableUtilTest {
+
+    @Test
+    void makePageable_LimitAboveMaximum_CapsLimit() {
+        Pageable pageable = PageableUtil.makePageable(0, 1_000_000, "desc", "date");
+
+        assertEquals(PageableUtil.MAX_LIMIT, pageable.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "date"), pageable.getSort());
+    }
+
+    @Test
+    void makePageable_NonPositiveLimit_UsesSingleElement() {
+        assertEquals(1, PageableUtil.makePageable(0, 0, "asc", "id").getPageSize());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamUtilTest {
+
+    @Test
+    void concat_ConsumedStreams_OpensSecondAfterFirstIsClosed() {
+        List<String> events = new ArrayList<>();
+        Stream<Integer> stream = StreamUtil.concat(
+                () -> {
+                    events.add("open first");
+                    return Stream.of(1, 2).onClose(() -> events.add("close first"));
+                },
+                () -> {
+                    events.add("open second");
+                    return Stream.of(3).onClose(() -> events.add("close second"));
+                }
+        );
+
+        assertEquals(List.of(), events);
+        try (stream) {
+            assertEquals(List.of(1, 2, 3), stream.toList());
+        }
+        assertEquals(List.of("open first", "close first", "open second", "close second"), events);
+    }
+
+    @Test
+    void concat_ClosedEarly_ClosesOpenStreamAndSkipsSecond() {
+        List<String> events = new ArrayList<>();
+        Stream<Integer> stream = StreamUtil.concat(
+                () -> Stream.of(1, 2).onClose(() -> events.add("close first")),
+                () -> {
+                    events.add("open second");
+                    return Stream.of(3);
+                }
+        );
+
+        try (stream) {
+            assertEquals(1, stream.iterator().next());
+        }
+        assertEquals(List.of("close first"), events);
+    }
+
+    @Test
+    void merge_OrderedStreams_InterleavesByComparator() {
+        List<String> events = new ArrayList<>();
+        Stream<Integer> stream = StreamUtil.merge(
+                () -> Stream.of(1, 4, 5).onClose(() -> events.add("close first")),
+                () -> Stream.of(2, 3, 6, 7).onClose(() -> events.add("close second")),
+                Comparator.naturalOrder()
+        );
+
+        try (stream) {
+            assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), stream.toList());
+        }
+        assertEquals(List.of("close first", "close second"), events);
+    }
+
+    @Test
+    void merge_OneStreamEmpty_ReturnsOther() {
+        try (Stream<Integer> stream = StreamUtil.merge(Stream::empty, () -> Stream.of(1, 2), Comparator.naturalOrder())) {
+            assertEquals(List.of(1, 2), stream.toList());
+        }
+    }
+}